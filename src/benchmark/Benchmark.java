@@ -0,0 +1,73 @@
+package benchmark;
+
+/**
+ * A measured operation of the benchmark suite. The runner calls setUp before every iteration, without timing it, then
+ * times getOperationsPerIteration calls to run.
+ *
+ * @author SnapDragon
+ *
+ */
+public abstract class Benchmark {
+
+    private String name;
+    private int operationsPerIteration;
+
+    /**
+     * Constructs a benchmark.
+     *
+     * @param name Name of the benchmark, including its parameters.
+     * @param operationsPerIteration Number of operations timed per iteration.
+     * @roseuid 5837D20A0010
+     */
+    protected Benchmark(String name, int operationsPerIteration) {
+        this.name = name;
+        this.operationsPerIteration = operationsPerIteration;
+    }
+
+    /**
+     * Gets the name of the benchmark.
+     *
+     * @return The name of the benchmark, including its parameters.
+     * @roseuid 5837D20A0011
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Gets the number of operations timed per iteration.
+     *
+     * @return The number of calls to run per iteration.
+     * @roseuid 5837D20A0012
+     */
+    public int getOperationsPerIteration() {
+        return this.operationsPerIteration;
+    }
+
+    /**
+     * Prepares the state used by the next iteration. Not timed.
+     * @roseuid 5837D20A0013
+     */
+    public void setUp() {
+    }
+
+    /**
+     * Runs the measured operation once.
+     *
+     * @return A value depending on the work done, consumed by the runner so that the work cannot be optimized away.
+     * @roseuid 5837D20A0014
+     */
+    public abstract long run();
+
+    /**
+     * Gives details on the measured iterations, printed below the result of the benchmark.
+     *
+     * @param operations Number of operations measured.
+     * @return The details, or null if there are none.
+     * @roseuid 5837D20A0015
+     */
+    public String getDetails(long operations) {
+        return null;
+    }
+
+}
@@ -0,0 +1,93 @@
+package benchmark;
+
+/**
+ * Measure of a benchmark: the average time and the average memory allocated per operation.
+ *
+ * @author SnapDragon
+ *
+ */
+public class BenchmarkResult {
+
+    private String name;
+    private double nanosPerOperation;
+    private double bytesPerOperation;
+
+    /**
+     * Constructs a result.
+     *
+     * @param name Name of the benchmark.
+     * @param nanosPerOperation Average time of an operation, in nanoseconds.
+     * @param bytesPerOperation Average memory allocated by an operation, in bytes, or -1 if it could not be measured.
+     * @roseuid 5837D20A0020
+     */
+    public BenchmarkResult(String name, double nanosPerOperation, double bytesPerOperation) {
+        this.name = name;
+        this.nanosPerOperation = nanosPerOperation;
+        this.bytesPerOperation = bytesPerOperation;
+    }
+
+    /**
+     * Gets the name of the benchmark.
+     *
+     * @return The name of the benchmark.
+     * @roseuid 5837D20A0021
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Gets the average time of an operation.
+     *
+     * @return The time in nanoseconds.
+     * @roseuid 5837D20A0022
+     */
+    public double getNanosPerOperation() {
+        return this.nanosPerOperation;
+    }
+
+    /**
+     * Gets the average memory allocated by an operation.
+     *
+     * @return The allocated memory in bytes, or -1 if it could not be measured.
+     * @roseuid 5837D20A0023
+     */
+    public double getBytesPerOperation() {
+        return this.bytesPerOperation;
+    }
+
+    /**
+     * Writes the result as a line of a baseline file.
+     *
+     * @return The name, time and allocated memory separated by tabs.
+     * @roseuid 5837D20A0024
+     */
+    public String toBaselineLine() {
+        return this.name + "\t" + this.nanosPerOperation + "\t" + this.bytesPerOperation;
+    }
+
+    /**
+     * Reads a result from a line of a baseline file.
+     *
+     * @param line Line written by toBaselineLine.
+     * @return The result.
+     * @roseuid 5837D20A0025
+     */
+    public static BenchmarkResult fromBaselineLine(String line) {
+        String[] fields = line.split("\t");
+        if (fields.length != 3) {
+            throw new IllegalArgumentException("Invalid baseline line " + line);
+        }
+        return new BenchmarkResult(fields[0], Double.parseDouble(fields[1]), Double.parseDouble(fields[2]));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return String.format("%-56s %14.1f ns/op %12.1f B/op", this.name, this.nanosPerOperation,
+                        this.bytesPerOperation);
+    }
+
+}
@@ -0,0 +1,206 @@
+package benchmark;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs benchmarks and compares their results with a baseline. Every benchmark is warmed up, then measured over several
+ * iterations. The memory allocated by the measured thread is read from the ThreadMXBean of the JVM when it supports
+ * it, which gives the allocation rate without running the garbage collector.
+ *
+ * @author SnapDragon
+ *
+ */
+public class BenchmarkRunner {
+
+    public static int WARMUP_ITERATIONS = 5;
+    public static int MEASURED_ITERATIONS = 10;
+
+    private com.sun.management.ThreadMXBean allocationBean;
+
+    /**
+     * Value consumed from the operations, so that the JIT compiler cannot remove them.
+     */
+    private long sink = 0;
+
+    /**
+     * Constructs a runner.
+     * @roseuid 5837D20A0030
+     */
+    public BenchmarkRunner() {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        if (threadBean instanceof com.sun.management.ThreadMXBean) {
+            this.allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+            if (!this.allocationBean.isThreadAllocatedMemorySupported()) {
+                this.allocationBean = null;
+            } else {
+                this.allocationBean.setThreadAllocatedMemoryEnabled(true);
+            }
+        }
+    }
+
+    /**
+     * Measures a benchmark.
+     *
+     * @param benchmark Benchmark to measure.
+     * @return The average time and allocated memory per operation.
+     * @roseuid 5837D20A0031
+     */
+    public BenchmarkResult measure(Benchmark benchmark) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            benchmark.setUp();
+            this.iterate(benchmark);
+        }
+
+        long nanos = 0;
+        long bytes = 0;
+        long threadId = Thread.currentThread().getId();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            benchmark.setUp();
+            long allocatedBefore = this.allocatedBytes(threadId);
+            long start = System.nanoTime();
+            this.iterate(benchmark);
+            nanos += System.nanoTime() - start;
+            bytes += this.allocatedBytes(threadId) - allocatedBefore;
+        }
+
+        long operations = (long) MEASURED_ITERATIONS * benchmark.getOperationsPerIteration();
+        return new BenchmarkResult(benchmark.getName(), (double) nanos / operations,
+                        this.allocationBean == null ? -1 : (double) bytes / operations);
+    }
+
+    /**
+     * Gets the memory allocated by a thread since it started.
+     *
+     * @param threadId Id of the thread.
+     * @return The allocated memory in bytes, or 0 if it cannot be measured.
+     * @roseuid 5837D20A0037
+     */
+    private long allocatedBytes(long threadId) {
+        return this.allocationBean == null ? 0 : this.allocationBean.getThreadAllocatedBytes(threadId);
+    }
+
+    /**
+     * Runs the operations of an iteration.
+     *
+     * @param benchmark Benchmark to run.
+     * @roseuid 5837D20A0032
+     */
+    private void iterate(Benchmark benchmark) {
+        for (int i = 0; i < benchmark.getOperationsPerIteration(); i++) {
+            this.sink += benchmark.run();
+        }
+    }
+
+    /**
+     * Measures benchmarks and prints their results.
+     *
+     * @param benchmarks Benchmarks to measure.
+     * @return The results, in the same order.
+     * @roseuid 5837D20A0033
+     */
+    public List<BenchmarkResult> measureAll(List<Benchmark> benchmarks) {
+        ArrayList<BenchmarkResult> results = new ArrayList<BenchmarkResult>();
+        for (Benchmark benchmark : benchmarks) {
+            BenchmarkResult result = this.measure(benchmark);
+            results.add(result);
+            System.out.println(result);
+            String details = benchmark.getDetails((long) MEASURED_ITERATIONS * benchmark.getOperationsPerIteration());
+            if (details != null) {
+                System.out.println("    " + details);
+            }
+        }
+        // Printing the sink keeps it alive, its value is meaningless.
+        System.out.println("(" + (this.sink & 1) + ")");
+        return results;
+    }
+
+    /**
+     * Saves results to a baseline file.
+     *
+     * @param results Results to save.
+     * @param filename Name of the baseline file.
+     * @throws IOException If the file cannot be written.
+     * @roseuid 5837D20A0034
+     */
+    public static void saveBaseline(List<BenchmarkResult> results, String filename) throws IOException {
+        PrintWriter writer = new PrintWriter(new FileOutputStream(filename));
+        try {
+            for (BenchmarkResult result : results) {
+                writer.println(result.toBaselineLine());
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Loads results from a baseline file.
+     *
+     * @param filename Name of the baseline file.
+     * @return The results, by benchmark name.
+     * @throws IOException If the file cannot be read.
+     * @roseuid 5837D20A0035
+     */
+    public static Map<String, BenchmarkResult> loadBaseline(String filename) throws IOException {
+        LinkedHashMap<String, BenchmarkResult> baseline = new LinkedHashMap<String, BenchmarkResult>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(filename)));
+        try {
+            String line = reader.readLine();
+            while (line != null) {
+                if (!line.trim().isEmpty()) {
+                    BenchmarkResult result = BenchmarkResult.fromBaselineLine(line);
+                    baseline.put(result.getName(), result);
+                }
+                line = reader.readLine();
+            }
+        } finally {
+            reader.close();
+        }
+        return baseline;
+    }
+
+    /**
+     * Compares results with a baseline and prints the regressions. A benchmark regresses when it is slower than its
+     * baseline by more than the tolerance, or when it allocates more than its baseline by more than the tolerance and
+     * at least 16 bytes per operation.
+     *
+     * @param results Results to check.
+     * @param baseline Baseline results, by benchmark name. Benchmarks missing from the baseline are not checked.
+     * @param tolerance Accepted relative slowdown, for instance 0.25 for 25%.
+     * @return The number of regressions.
+     * @roseuid 5837D20A0036
+     */
+    public static int compare(List<BenchmarkResult> results, Map<String, BenchmarkResult> baseline, double tolerance) {
+        int regressions = 0;
+        for (BenchmarkResult result : results) {
+            BenchmarkResult reference = baseline.get(result.getName());
+            if (reference == null) {
+                continue;
+            }
+            double timeRatio = result.getNanosPerOperation() / reference.getNanosPerOperation();
+            double allocated = result.getBytesPerOperation() - reference.getBytesPerOperation();
+            boolean slower = timeRatio > 1 + tolerance;
+            boolean allocates = reference.getBytesPerOperation() >= 0 && allocated >= 16
+                            && allocated > tolerance * reference.getBytesPerOperation();
+            if (slower || allocates) {
+                regressions++;
+                System.out.println(String.format("REGRESSION %s: %.1f ns/op (%+.0f%%), %.1f B/op (baseline %.1f)",
+                                result.getName(), result.getNanosPerOperation(), (timeRatio - 1) * 100,
+                                result.getBytesPerOperation(), reference.getBytesPerOperation()));
+            }
+        }
+        return regressions;
+    }
+
+}
@@ -0,0 +1,144 @@
+package benchmark;
+
+import model.GameGrid;
+import model.GameGrid.CASE_TYPES;
+import model.Path;
+
+/**
+ * Benchmark of the connectivity passes of the GameGrid class on very large maps. Builds a serpentine road and an
+ * open road field of about one million road tiles each, then times the flood fills and the shortest path on them.
+ *
+ * @author SnapDragon
+ *
+ */
+public class ConnectivityBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int MEASURED_ITERATIONS = 10;
+
+    /**
+     * Entry point of the benchmark.
+     *
+     * @param args Optional number of columns of the generated maps (default 1000).
+     * @roseuid 5837D20A0001
+     */
+    public static void main(String[] args) {
+        int columns = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+
+        ConnectivityBenchmark.run("serpentine", ConnectivityBenchmark.serpentine(2 * columns + 1, columns));
+        ConnectivityBenchmark.run("open field", ConnectivityBenchmark.openField(columns, columns));
+    }
+
+    /**
+     * Builds a map whose road zigzags over every other line, from the top left to the bottom right corner.
+     *
+     * @param lineCount Number of lines of the map, should be odd.
+     * @param columnCount Number of columns of the map.
+     * @return The generated grid.
+     * @roseuid 5837D20A0002
+     */
+    public static GameGrid serpentine(int lineCount, int columnCount) {
+        CASE_TYPES[][] cases = new CASE_TYPES[lineCount][columnCount];
+        for (int i = 0; i < lineCount; i++) {
+            for (int j = 0; j < columnCount; j++) {
+                if (i % 2 == 0) {
+                    cases[i][j] = CASE_TYPES.ROAD;
+                } else if (i % 4 == 1) {
+                    cases[i][j] = j == columnCount - 1 ? CASE_TYPES.ROAD : CASE_TYPES.GRASS;
+                } else {
+                    cases[i][j] = j == 0 ? CASE_TYPES.ROAD : CASE_TYPES.GRASS;
+                }
+            }
+        }
+        cases[0][0] = CASE_TYPES.START;
+        int lastLine = lineCount - 1;
+        cases[lastLine][lastLine % 4 == 0 ? columnCount - 1 : 0] = CASE_TYPES.END;
+
+        GameGrid grid = new GameGrid();
+        grid.setCases(cases);
+        return grid;
+    }
+
+    /**
+     * Builds a map entirely made of road, with the entry point and the exit point at opposite corners.
+     *
+     * @param lineCount Number of lines of the map.
+     * @param columnCount Number of columns of the map.
+     * @return The generated grid.
+     * @roseuid 5837D20A0003
+     */
+    public static GameGrid openField(int lineCount, int columnCount) {
+        CASE_TYPES[][] cases = new CASE_TYPES[lineCount][columnCount];
+        for (int i = 0; i < lineCount; i++) {
+            for (int j = 0; j < columnCount; j++) {
+                cases[i][j] = CASE_TYPES.ROAD;
+            }
+        }
+        cases[0][0] = CASE_TYPES.START;
+        cases[lineCount - 1][columnCount - 1] = CASE_TYPES.END;
+
+        GameGrid grid = new GameGrid();
+        grid.setCases(cases);
+        return grid;
+    }
+
+    /**
+     * Times the connectivity passes on a grid and prints the results.
+     *
+     * @param name Name of the map, used in the report.
+     * @param grid Grid to benchmark.
+     * @roseuid 5837D20A0004
+     */
+    private static void run(String name, GameGrid grid) {
+        int[] labels = grid.roadLabels();
+        int roadTiles = 0;
+        for (int label : labels) {
+            if (label != 0) {
+                roadTiles++;
+            }
+        }
+        System.out.println(String.format("%s map %sx%s, %s connected road tiles", name, grid.getRows(),
+                        grid.getColumns(), roadTiles));
+
+        long roadLabels = 0;
+        long connectivities = 0;
+        long shortestPath = 0;
+        int pathLength = 0;
+        CASE_TYPES[][] cases = grid.getCases();
+
+        for (int i = 0; i < WARMUP_ITERATIONS + MEASURED_ITERATIONS; i++) {
+            // Setting the cases again drops the cached distance field.
+            grid.setCases(cases);
+            long start = System.nanoTime();
+            grid.roadLabels();
+            long labeled = System.nanoTime();
+            grid.connectivities();
+            long connected = System.nanoTime();
+            pathLength = new Path(grid).getShortestPath().size();
+            long pathFound = System.nanoTime();
+
+            if (i >= WARMUP_ITERATIONS) {
+                roadLabels += labeled - start;
+                connectivities += connected - labeled;
+                shortestPath += pathFound - connected;
+            }
+        }
+
+        ConnectivityBenchmark.report("roadLabels", roadLabels);
+        ConnectivityBenchmark.report("connectivities", connectivities);
+        ConnectivityBenchmark.report("shortest path (" + pathLength + " tiles)", shortestPath);
+    }
+
+    /**
+     * Prints the average time of a measured operation.
+     *
+     * @param operation Name of the operation.
+     * @param totalNanos Total time spent in the measured iterations, in nanoseconds.
+     * @roseuid 5837D20A0005
+     */
+    private static void report(String operation, long totalNanos) {
+        System.out.println(String.format("    %-36s %10.3f ms/op", operation,
+                        totalNanos / 1e6 / MEASURED_ITERATIONS));
+    }
+
+}
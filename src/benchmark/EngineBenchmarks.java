@@ -0,0 +1,520 @@
+package benchmark;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import model.Game;
+import model.GameGrid;
+import model.GameGrid.CASE_TYPES;
+import model.GameSnapshot;
+import model.Ghost;
+import model.GhostStore;
+import model.GridLocation;
+import model.MapData;
+import model.Path;
+import model.event.GameEvent;
+import model.event.GameEventBatch;
+import model.event.GameEventListener;
+import model.simulation.Simulation;
+import model.strategy.AttackStrategy;
+import model.tower.ExplosionTower;
+import model.tower.Tower;
+import model.tower.TowerFactory;
+import views.MapCanvas;
+
+/**
+ * Benchmark suite of the hot paths of the engine: the turns of a game, the shortest path, the map loading, the
+ * targeting of the towers and the painting of the changed tiles. The benchmarks are run on serpentine maps of several
+ * sizes, with several numbers of towers and ghosts, and report the time and the memory allocated per operation. The
+ * results can be saved as a baseline, and later runs compared with it to catch regressions.
+ *
+ * @author SnapDragon
+ *
+ */
+public class EngineBenchmarks {
+
+    /**
+     * Number of columns of the benchmarked maps. A map of c columns has 2c + 1 lines.
+     */
+    private static final int[] MAP_COLUMNS = {16, 64, 256};
+    private static final int[] TOWER_COUNTS = {3, 32};
+    private static final int[] GHOST_COUNTS = {3, 64};
+
+    /**
+     * Health points of the benchmarked ghosts, high enough for them to survive every iteration.
+     */
+    private static final int GHOST_HEALTH_POINTS = 1000000;
+
+    private static final String[] TOWER_NAMES = {"Fire tower", "Ice tower", "Explosion tower"};
+
+    /**
+     * Entry point of the suite.
+     *
+     * @param args Options: --quick for fewer iterations, --filter text to only run the benchmarks whose name contains
+     *            the text, --save file to save the results as a baseline, --baseline file to compare the results with
+     *            a baseline, --tolerance ratio for the accepted slowdown (default 0.25). Exits with status 1 if a
+     *            benchmark regressed, or if a headless game kept allocating after its first wave.
+     * @throws IOException If the baseline file cannot be read or written.
+     * @roseuid 5837D20A0040
+     */
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+
+        String filter = null;
+        String saveFile = null;
+        String baselineFile = null;
+        double tolerance = 0.25;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--quick")) {
+                BenchmarkRunner.WARMUP_ITERATIONS = 2;
+                BenchmarkRunner.MEASURED_ITERATIONS = 3;
+            } else if (args[i].equals("--filter")) {
+                filter = args[++i];
+            } else if (args[i].equals("--save")) {
+                saveFile = args[++i];
+            } else if (args[i].equals("--baseline")) {
+                baselineFile = args[++i];
+            } else if (args[i].equals("--tolerance")) {
+                tolerance = Double.parseDouble(args[++i]);
+            } else {
+                System.out.println("Usage: EngineBenchmarks [--quick] [--filter text] [--save file] "
+                                + "[--baseline file] [--tolerance ratio]");
+                return;
+            }
+        }
+
+        ArrayList<Benchmark> benchmarks = new ArrayList<Benchmark>();
+        for (Benchmark benchmark : EngineBenchmarks.createBenchmarks()) {
+            if (filter == null || benchmark.getName().contains(filter)) {
+                benchmarks.add(benchmark);
+            }
+        }
+
+        if (!EngineBenchmarks.checkAllocations()) {
+            System.exit(1);
+        }
+
+        List<BenchmarkResult> results = new BenchmarkRunner().measureAll(benchmarks);
+
+        if (saveFile != null) {
+            BenchmarkRunner.saveBaseline(results, saveFile);
+        }
+        if (baselineFile != null) {
+            Map<String, BenchmarkResult> baseline = BenchmarkRunner.loadBaseline(baselineFile);
+            int regressions = BenchmarkRunner.compare(results, baseline, tolerance);
+            System.out.println(regressions + " regression(s) against " + baselineFile);
+            if (regressions > 0) {
+                System.exit(1);
+            }
+        }
+    }
+
+    /**
+     * Creates all the benchmarks of the suite, for every map size and every number of towers and ghosts.
+     *
+     * @return The benchmarks.
+     * @throws IOException If the temporary map files cannot be written.
+     * @roseuid 5837D20A0041
+     */
+    public static List<Benchmark> createBenchmarks() throws IOException {
+        ArrayList<Benchmark> benchmarks = new ArrayList<Benchmark>();
+        for (int columns : EngineBenchmarks.MAP_COLUMNS) {
+            String map = (2 * columns + 1) + "x" + columns;
+            for (int towers : EngineBenchmarks.TOWER_COUNTS) {
+                for (int ghosts : EngineBenchmarks.GHOST_COUNTS) {
+                    benchmarks.add(new MakeTurnBenchmark(columns, towers, ghosts));
+                }
+            }
+            for (int ghosts : EngineBenchmarks.GHOST_COUNTS) {
+                benchmarks.add(new AttackBenchmark("attackGhost", columns, ghosts, false));
+                benchmarks.add(new AttackBenchmark("ExplosionTower.attack", columns, ghosts, true));
+                benchmarks.add(new ViewUpdateBenchmark(columns, ghosts));
+            }
+            benchmarks.add(new NextLocationBenchmark(columns));
+            benchmarks.add(new ColdPathBenchmark(columns));
+            benchmarks.add(new ConnectivitiesBenchmark(columns));
+            String mapFile = EngineBenchmarks.writeMapFile(columns);
+            benchmarks.add(new ReadFromFileBenchmark(columns, mapFile, false));
+            benchmarks.add(new ReadFromFileBenchmark(columns, mapFile, true));
+            System.out.println("Created the benchmarks of the " + map + " map");
+        }
+        return benchmarks;
+    }
+
+    /**
+     * Checks that the turns of a headless game stop allocating once the buffers of the game are sized: on every map,
+     * a game with towers is played to its end, and its allocation count must stay the same from the end of the first
+     * wave to the end of the game.
+     *
+     * @return True if the allocation count of every game stayed flat after the first wave.
+     * @roseuid 5837D20A0046
+     */
+    public static boolean checkAllocations() {
+        boolean flat = true;
+        for (int columns : EngineBenchmarks.MAP_COLUMNS) {
+            int towerCount = EngineBenchmarks.TOWER_COUNTS[EngineBenchmarks.TOWER_COUNTS.length - 1];
+            Game game = EngineBenchmarks.createGame(EngineBenchmarks.createGrid(columns), towerCount, 0);
+            Simulation simulation = new Simulation(game);
+            simulation.playWave();
+            long firstWaveCount = game.getAllocationCount();
+            simulation.playGame();
+
+            long count = game.getAllocationCount();
+            System.out.println(String.format("Allocations map=%sx%s towers=%s: %s after the first wave, %s at the end",
+                            2 * columns + 1, columns, towerCount, firstWaveCount, count));
+            if (count != firstWaveCount) {
+                flat = false;
+            }
+        }
+        return flat;
+    }
+
+    /**
+     * Builds the serpentine grid of the specified width, with its lazy caches filled.
+     *
+     * @param columns Number of columns of the map.
+     * @return The grid.
+     * @roseuid 5837D20A0042
+     */
+    private static GameGrid createGrid(int columns) {
+        GameGrid grid = ConnectivityBenchmark.serpentine(2 * columns + 1, columns);
+        grid.distanceField();
+        return grid;
+    }
+
+    /**
+     * Creates a game on a grid, with towers on evenly spread grass tiles and ghosts at evenly spread positions of the
+     * path. The player has enough lives for the ghosts reaching the exit not to end the game.
+     *
+     * @param grid Grid of the game.
+     * @param towerCount Number of towers to place.
+     * @param ghostCount Number of ghosts to place.
+     * @return The game.
+     * @roseuid 5837D20A0043
+     */
+    private static Game createGame(GameGrid grid, int towerCount, int ghostCount) {
+        Game game = new Game(grid, 1);
+        game.setLives(Integer.MAX_VALUE);
+
+        List<GridLocation> grass = grid.getCasesByType(CASE_TYPES.GRASS);
+        for (int i = 0; i < towerCount; i++) {
+            GridLocation location = grass.get((int) ((long) (2 * i + 1) * grass.size() / (2 * towerCount)));
+            String name = EngineBenchmarks.TOWER_NAMES[i % EngineBenchmarks.TOWER_NAMES.length];
+            Tower tower = TowerFactory.createTower(name);
+            tower.setLocation(location);
+            game.addTower(tower, location.x, location.y);
+        }
+
+        List<GridLocation> path = game.shortestPath.getShortestPath();
+        for (int i = 0; i < ghostCount; i++) {
+            GridLocation location = path.get((int) ((long) (i + 1) * path.size() / (ghostCount + 1)));
+            game.addGhost(new Ghost(i + 1, location, 1, EngineBenchmarks.GHOST_HEALTH_POINTS, 0));
+        }
+        return game;
+    }
+
+    /**
+     * Creates a ghost store holding ghosts at evenly spread positions of the path.
+     *
+     * @param grid Grid of the store.
+     * @param path Shortest path of the grid.
+     * @param ghostCount Number of ghosts to place.
+     * @return The store.
+     * @roseuid 5837D20A0044
+     */
+    private static GhostStore createGhosts(GameGrid grid, List<GridLocation> path, int ghostCount) {
+        int columnCount = grid.getColumns();
+        GhostStore ghosts = new GhostStore(grid.getRows(), columnCount);
+        for (int i = 0; i < ghostCount; i++) {
+            GridLocation location = path.get((int) ((long) (i + 1) * path.size() / (ghostCount + 1)));
+            ghosts.add(i + 1, location.x * columnCount + location.y, EngineBenchmarks.GHOST_HEALTH_POINTS, 1, 0);
+        }
+        return ghosts;
+    }
+
+    /**
+     * Writes the serpentine map of the specified width to a temporary file in the format read by GameGrid.
+     *
+     * @param columns Number of columns of the map.
+     * @return The name of the file, deleted when the JVM exits.
+     * @throws IOException If the file cannot be written.
+     * @roseuid 5837D20A0045
+     */
+    private static String writeMapFile(int columns) throws IOException {
+        CASE_TYPES[][] cases = ConnectivityBenchmark.serpentine(2 * columns + 1, columns).getCases();
+        File file = File.createTempFile("benchmark-map-" + columns + "-", ".txt");
+        file.deleteOnExit();
+        PrintWriter writer = new PrintWriter(new FileOutputStream(file));
+        try {
+            writer.println(cases.length + " " + cases[0].length);
+            StringBuilder line = new StringBuilder();
+            for (CASE_TYPES[] row : cases) {
+                line.setLength(0);
+                for (int j = 0; j < row.length; j++) {
+                    if (j > 0) {
+                        line.append(' ');
+                    }
+                    line.append(row[j].ordinal());
+                }
+                writer.println(line);
+            }
+        } finally {
+            writer.close();
+        }
+        return file.getPath();
+    }
+
+    /**
+     * Plays turns of a game in progress, and reports the time spent in every phase of the turns.
+     */
+    private static class MakeTurnBenchmark extends Benchmark {
+
+        private GameGrid grid;
+        private int towerCount;
+        private int ghostCount;
+        private Game game;
+        private long[] phaseNanos = new long[Game.PHASE_NAMES.length];
+
+        MakeTurnBenchmark(int columns, int towerCount, int ghostCount) {
+            super("makeTurn map=" + (2 * columns + 1) + "x" + columns + " towers=" + towerCount + " ghosts="
+                            + ghostCount, 32);
+            this.grid = EngineBenchmarks.createGrid(columns);
+            this.towerCount = towerCount;
+            this.ghostCount = ghostCount;
+        }
+
+        @Override
+        public void setUp() {
+            this.game = EngineBenchmarks.createGame(this.grid, this.towerCount, this.ghostCount);
+            for (int i = 0; i < this.phaseNanos.length; i++) {
+                this.phaseNanos[i] = 0;
+            }
+            this.game.setPhaseTimer(this.phaseNanos);
+        }
+
+        @Override
+        public long run() {
+            this.game.makeTurn();
+            return this.game.ghosts.size();
+        }
+
+        @Override
+        public String getDetails(long operations) {
+            // Only the last iteration is timed by phase, the timer being reset by setUp.
+            StringBuilder details = new StringBuilder("phases (ns/turn):");
+            for (int i = 0; i < this.phaseNanos.length; i++) {
+                details.append(' ').append(Game.PHASE_NAMES[i]).append('=')
+                                .append(this.phaseNanos[i] / this.getOperationsPerIteration());
+            }
+            return details.toString();
+        }
+    }
+
+    /**
+     * Walks along the shortest path with getNextLocation.
+     */
+    private static class NextLocationBenchmark extends Benchmark {
+
+        private Path path;
+        private List<GridLocation> locations;
+        private int index = 0;
+
+        NextLocationBenchmark(int columns) {
+            super("Path.getNextLocation map=" + (2 * columns + 1) + "x" + columns, 4096);
+            this.path = new Path(EngineBenchmarks.createGrid(columns));
+            this.locations = this.path.getShortestPath();
+        }
+
+        @Override
+        public long run() {
+            GridLocation next = this.path.getNextLocation(this.locations.get(this.index));
+            this.index = this.index + 1 == this.locations.size() - 1 ? 0 : this.index + 1;
+            return next.x;
+        }
+    }
+
+    /**
+     * Finds the shortest path of a grid whose cases were just set, so that no derived data is cached.
+     */
+    private static class ColdPathBenchmark extends Benchmark {
+
+        private GameGrid grid;
+        private CASE_TYPES[][] cases;
+
+        ColdPathBenchmark(int columns) {
+            super("Path.getShortestPath cold map=" + (2 * columns + 1) + "x" + columns, 1);
+            this.grid = EngineBenchmarks.createGrid(columns);
+            this.cases = this.grid.getCases();
+        }
+
+        @Override
+        public void setUp() {
+            this.grid.setCases(this.cases);
+        }
+
+        @Override
+        public long run() {
+            return new Path(this.grid).getShortestPath().size();
+        }
+    }
+
+    /**
+     * Calculates the connectivity array of a grid.
+     */
+    private static class ConnectivitiesBenchmark extends Benchmark {
+
+        private GameGrid grid;
+
+        ConnectivitiesBenchmark(int columns) {
+            super("GameGrid.connectivities map=" + (2 * columns + 1) + "x" + columns, 1);
+            this.grid = EngineBenchmarks.createGrid(columns);
+        }
+
+        @Override
+        public long run() {
+            return this.grid.connectivities().length;
+        }
+    }
+
+    /**
+     * Loads a map file, either by parsing it and calculating its derived data, or as a game session does, from the map
+     * cache with random bushes.
+     */
+    private static class ReadFromFileBenchmark extends Benchmark {
+
+        private String filename;
+        private boolean cached;
+        private SplittableRandom random = new SplittableRandom(1);
+
+        ReadFromFileBenchmark(int columns, String filename, boolean cached) {
+            super((cached ? "GameGrid.readFromFile cached" : "MapData.load") + " map=" + (2 * columns + 1) + "x"
+                            + columns, 1);
+            this.filename = filename;
+            this.cached = cached;
+        }
+
+        @Override
+        public long run() {
+            try {
+                if (!this.cached) {
+                    return MapData.load(this.filename, 0, 0).getLineCount();
+                }
+                GameGrid grid = new GameGrid();
+                grid.readFromFile(this.filename, true, this.random);
+                return grid.getRows();
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }
+    }
+
+    /**
+     * Selects the target of a tower placed in the middle of the map, through its attack strategy or through the
+     * complete attack of an explosion tower.
+     */
+    private static class AttackBenchmark extends Benchmark {
+
+        private boolean explosion;
+        private Tower tower;
+        private GhostStore ghosts;
+        private AttackStrategy strategy = new AttackStrategy();
+        private SplittableRandom random = new SplittableRandom(1);
+        private GridLocation exitPoint;
+
+        AttackBenchmark(String name, int columns, int ghostCount, boolean explosion) {
+            super(name + " map=" + (2 * columns + 1) + "x" + columns + " ghosts=" + ghostCount, 4096);
+            this.explosion = explosion;
+            GameGrid grid = EngineBenchmarks.createGrid(columns);
+            this.exitPoint = grid.exitPoint();
+            this.ghosts = EngineBenchmarks.createGhosts(grid, new Path(grid).getShortestPath(), ghostCount);
+
+            this.tower = new ExplosionTower(new GridLocation(columns | 1, columns / 2));
+            this.tower.buildCoverage(grid);
+        }
+
+        @Override
+        public long run() {
+            if (this.explosion) {
+                return this.tower.attack(this.ghosts, this.exitPoint, this.random);
+            }
+            return this.strategy.attackGhost(this.tower, this.ghosts, this.exitPoint, this.random);
+        }
+    }
+
+    /**
+     * Paints the tiles changed by a turn, as the game view does when it receives a batch of events. The map is painted
+     * into an image, the view itself needing a screen. The turns are played while the benchmark is set up, so only
+     * the painting is timed.
+     */
+    private static class ViewUpdateBenchmark extends Benchmark implements GameEventListener {
+
+        private static final int TURNS = 32;
+
+        private GameGrid grid;
+        private int ghostCount;
+        private MapCanvas canvas;
+        private BufferedImage image;
+        private ArrayList<GameSnapshot> snapshots = new ArrayList<GameSnapshot>();
+        private int index;
+
+        ViewUpdateBenchmark(int columns, int ghostCount) {
+            super("view update map=" + (2 * columns + 1) + "x" + columns + " ghosts=" + ghostCount,
+                            ViewUpdateBenchmark.TURNS);
+            this.grid = EngineBenchmarks.createGrid(columns);
+            this.ghostCount = ghostCount;
+            this.canvas = new MapCanvas(this.grid);
+            this.canvas.setSize(this.canvas.getPreferredSize());
+            // Only the visible part of a large map is painted, the image covers a screen at most.
+            this.image = new BufferedImage(Math.min(this.canvas.getWidth(), 1920),
+                            Math.min(this.canvas.getHeight(), 1080), BufferedImage.TYPE_INT_RGB);
+        }
+
+        @Override
+        public void setUp() {
+            this.snapshots.clear();
+            this.index = 0;
+            Game game = EngineBenchmarks.createGame(this.grid, EngineBenchmarks.TOWER_COUNTS[0], this.ghostCount);
+            game.addListener(this, EnumSet.allOf(GameEvent.Type.class));
+            for (int turn = 0; turn < 4 * ViewUpdateBenchmark.TURNS
+                            && this.snapshots.size() < ViewUpdateBenchmark.TURNS; turn++) {
+                game.makeTurn();
+            }
+        }
+
+        @Override
+        public void eventsFired(GameEventBatch batch) {
+            this.snapshots.add(batch.getSnapshot());
+        }
+
+        @Override
+        public long run() {
+            GameSnapshot snapshot = this.snapshots.get(this.index++ % this.snapshots.size());
+            this.canvas.setSnapshot(snapshot);
+            int columnCount = snapshot.getColumnCount();
+            Graphics2D graphics = this.image.createGraphics();
+            try {
+                for (int i = 0; i < snapshot.getDirtyCount(); i++) {
+                    int cell = snapshot.getDirtyCell(i);
+                    graphics.setClip((cell % columnCount) * MapCanvas.TILE_SIZE,
+                                    (cell / columnCount) * MapCanvas.TILE_SIZE, MapCanvas.TILE_SIZE,
+                                    MapCanvas.TILE_SIZE);
+                    this.canvas.paint(graphics);
+                }
+            } finally {
+                graphics.dispose();
+            }
+            return snapshot.getDirtyCount();
+        }
+    }
+
+}
@@ -1,24 +1,27 @@
 package controllers;
 
-import java.awt.Point;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
+import java.util.EnumSet;
 
-import javax.swing.JButton;
 import javax.swing.JComboBox;
+import javax.swing.SwingUtilities;
 
 import misc.Utils;
 import model.Ghost;
 import model.Game;
 import model.GameGrid;
+import model.GameSnapshot;
 import model.GridLocation;
+import model.event.GameEvent;
 import model.tower.Tower;
 import views.GameView;
 
 /**
- * Main controller for listening to user inputs from the GameView.
+ * Main controller for listening to user inputs from the GameView. The actions of the user are submitted to the game
+ * thread, so that the event dispatch thread never waits for a turn to be played.
  *
  * @author SnapDragon
  *
@@ -32,7 +35,7 @@ public class GameController implements MouseListener, ActionListener {
     /**
      * Constructs a new GameController object.
      * Links the Game object to a GameView object
-     * using the Observer design pattern.
+     * listening to all the events of the game.
      *
      * @param game Game object to use with the view object.
      * @roseuid 5837CF4002CA
@@ -41,9 +44,9 @@ public class GameController implements MouseListener, ActionListener {
     public GameController(Game game) {
         this.game = game;
         this.gameView = new GameView(game, this);
-        this.game.addObserver(this.gameView);
+        this.game.addListener(this.gameView, EnumSet.allOf(GameEvent.Type.class));
         this.gameView.show();
-        this.gameView.update(this.game, this.game);
+        this.gameView.update(this.game.getSnapshot());
     }
 
     /**
@@ -52,27 +55,31 @@ public class GameController implements MouseListener, ActionListener {
     @Override
     public void mouseClicked(MouseEvent event) {
 
-        if (event.getSource() instanceof JButton
-                        && this.gameView.getButtonLocation((JButton) event.getSource()) != null) {
-            JButton buttonClicked = (JButton) event.getSource();
-            GridLocation clickLocation = this.gameView.getButtonLocation(buttonClicked);
-            GameGrid.CASE_TYPES caseType = this.game.grid.getCases()[clickLocation.x][clickLocation.y];
-            if (this.game.hasGhost(clickLocation)) {
-                Ghost ghost = this.game.ghosts.get(clickLocation);
+        GridLocation clickLocation = this.gameView.getTileLocation(event);
+        if (clickLocation != null) {
+            GameGrid.CASE_TYPES caseType = this.game.grid.getCase(clickLocation.x, clickLocation.y);
+            GameSnapshot snapshot = this.game.getSnapshot();
+            int clickCell = clickLocation.x * snapshot.getColumnCount() + clickLocation.y;
+            if (snapshot.hasGhost(clickCell)) {
+                Ghost ghost = snapshot.getGhost(clickCell);
                 this.gameView.selectedGhost = ghost;
                 this.gameView.showGhostDetails(ghost);
             } else if (caseType == GameGrid.CASE_TYPES.GRASS) {
-                if (this.gameView.selectedTower == null && this.game.hasTower(clickLocation.x, clickLocation.y)) {
-                    Tower tower = this.game.getTower(clickLocation.x, clickLocation.y);
+                if (this.gameView.selectedTower == null && snapshot.getTower(clickCell) != null) {
+                    Tower tower = snapshot.getTower(clickCell);
                     this.gameView.selectedTower = tower;
                     this.gameView.showTowerDetails(tower);
                 } else if (this.gameView.selectedTower != null) {
-                    Point towerLocation = this.gameView.getButtonLocation(buttonClicked);
-                    this.game.buyTower(this.gameView.selectedTower, towerLocation.x, towerLocation.y);
-                    if (this.game.getTower(towerLocation.x, towerLocation.y) != null) {
-                        this.gameView.selectedTower = this.game.getTower(towerLocation.x, towerLocation.y);
-                        this.gameView.showTowerDetails(this.gameView.selectedTower);
-                    }
+                    final Tower selectedTower = this.gameView.selectedTower;
+                    final int line = clickLocation.x;
+                    final int column = clickLocation.y;
+                    this.game.submit(new Runnable() {
+                        @Override
+                        public void run() {
+                            GameController.this.game.buyTower(selectedTower, line, column);
+                            GameController.this.showTowerDetails(line, column);
+                        }
+                    });
                 }
             }
             return;
@@ -139,18 +146,53 @@ public class GameController implements MouseListener, ActionListener {
      */
     @Override
     public void actionPerformed(ActionEvent e) {
-       if (e.getSource() == this.gameView.sellTowerButton) {
-            this.game.sellTower(this.gameView.selectedTower.getLocation().x,
-                            this.gameView.selectedTower.getLocation().y);
-            this.gameView.removeTower(this.gameView.selectedTower.getLocation().x,
-                            this.gameView.selectedTower.getLocation().y);
+        if (e.getSource() != this.gameView.sellTowerButton && e.getSource() != this.gameView.upgradeTowerButton) {
+            return;
+        }
+        final int line = this.gameView.selectedTower.getLocation().x;
+        final int column = this.gameView.selectedTower.getLocation().y;
+        if (e.getSource() == this.gameView.sellTowerButton) {
+            this.game.submit(new Runnable() {
+                @Override
+                public void run() {
+                    GameController.this.game.sellTower(line, column);
+                }
+            });
             this.gameView.closeTowerDetails();
         } else if (e.getSource() == this.gameView.upgradeTowerButton) {
-            game.upgradeTower(this.gameView.selectedTower.getLocation().x, this.gameView.selectedTower.getLocation().y);
-            this.gameView.showTowerDetails(this.gameView.selectedTower);
+            this.game.submit(new Runnable() {
+                @Override
+                public void run() {
+                    GameController.this.game.upgradeTower(line, column);
+                    GameController.this.showTowerDetails(line, column);
+                }
+            });
         }
 
     }
 
+    /**
+     * Selects the tower at a location and shows its details, as published by the game after a user action. Called by
+     * the game thread, the view being updated later on the event dispatch thread.
+     *
+     * @param line Line of the tower.
+     * @param column Column of the tower.
+     * @roseuid 5837CF4002CB
+     */
+    private void showTowerDetails(int line, int column) {
+        GameSnapshot snapshot = this.game.getSnapshot();
+        final Tower tower = snapshot.getTower(line * snapshot.getColumnCount() + column);
+        if (tower == null) {
+            return;
+        }
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                GameController.this.gameView.selectedTower = tower;
+                GameController.this.gameView.showTowerDetails(tower);
+            }
+        });
+    }
+
 
 }
@@ -2,13 +2,14 @@ package controllers;
 
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.io.IOException;
+import java.util.SplittableRandom;
 
 import javax.swing.JOptionPane;
 
 import misc.Utils;
 import model.Game;
 import model.GameGrid;
-import model.Path;
 import views.MainView;
 
 /**
@@ -61,12 +62,18 @@ public class MainController implements Runnable, ActionListener {
             String filePath = Utils.selectFile();
             if (filePath != null) {
 
-                Game game = new Game();
-                game.grid.readFromFile(filePath, true);
+                // The seed gives both the bushes of the grid and the draws of the game, so it is enough to replay it.
+                long seed = new SplittableRandom().nextLong();
+                GameGrid grid = new GameGrid();
+                try {
+                    grid.readFromFile(filePath, true, new SplittableRandom(seed).split());
+                } catch (IOException exception) {
+                    JOptionPane.showMessageDialog(this.mainFrame, "The map could not be loaded.\n"
+                                    + exception.getMessage(), "Invalid map", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+                Game game = new Game(grid, seed);
                 GameController gameController = new GameController(game);
-
-                Path t = new Path(game.grid);
-
             }
 
         } 
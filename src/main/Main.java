@@ -3,6 +3,7 @@ package main;
 import java.awt.EventQueue;
 
 import controllers.MainController;
+import views.SpriteCache;
 
 /**
  * This class is the main class containing the entry point of the program.
@@ -18,6 +19,7 @@ public class Main {
      * @roseuid 5837CF4003CA
      */
     public static void main(final String[] args) {
+        SpriteCache.preload();
         EventQueue.invokeLater(MainController.getInstance());
     }
 
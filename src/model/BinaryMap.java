@@ -0,0 +1,298 @@
+package model;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Binary format of the map files, holding the tiles together with the data derived from them, so that a map can be
+ * loaded without parsing text or calculating its distance field. All the numbers are written big-endian:
+ * <ul>
+ * <li>the magic number MAGIC and the version of the format,</li>
+ * <li>the number of lines and the number of columns of the map,</li>
+ * <li>the cells of the entry point and of the exit point, or -1 if the map has none,</li>
+ * <li>the number of runs, then the runs of tiles of the same type in line order, each one as a byte holding the
+ * ordinal of the type and an int holding the length of the run,</li>
+ * <li>the distance field of the map, one int per cell,</li>
+ * <li>the CRC32 of all the previous bytes.</li>
+ * </ul>
+ * Cells are numbered line * columnCount + column. The format is detected by GameGrid.readFromFile, which loads both
+ * the text and the binary maps. The random bushes are only placed on grass, where ghosts do not walk, so the stored
+ * distance field stays valid whatever bushes are added when the map is loaded.
+ *
+ * @author SnapDragon
+ *
+ */
+public class BinaryMap {
+
+    /**
+     * First bytes of a binary map file, "GKMP".
+     */
+    public static final int MAGIC = 0x474B4D50;
+
+    public static final int VERSION = 1;
+
+    private static final int TYPE_COUNT = GameGrid.CASE_TYPES.values().length;
+
+    /**
+     * Size of the fixed part of the header: magic number, version, dimensions, entry point, exit point and number of
+     * runs.
+     */
+    private static final int HEADER_SIZE = 7 * 4;
+
+    private static final int RUN_SIZE = 1 + 4;
+
+    int lineCount;
+    int columnCount;
+    byte[] cells;
+    int entryCell;
+    int exitCell;
+    int[] distanceField;
+
+    /**
+     * Constructs a map from its loaded parts.
+     *
+     * @param lineCount Number of lines of the map.
+     * @param columnCount Number of columns of the map.
+     * @param cells Ordinal of the type of every cell.
+     * @param entryCell Cell of the entry point, or -1.
+     * @param exitCell Cell of the exit point, or -1.
+     * @param distanceField Distance field of the map.
+     * @roseuid 5837D40A0001
+     */
+    private BinaryMap(int lineCount, int columnCount, byte[] cells, int entryCell, int exitCell,
+                    int[] distanceField) {
+        this.lineCount = lineCount;
+        this.columnCount = columnCount;
+        this.cells = cells;
+        this.entryCell = entryCell;
+        this.exitCell = exitCell;
+        this.distanceField = distanceField;
+    }
+
+    /**
+     * Determines if a file is a binary map, by looking at its first bytes.
+     *
+     * @param filename Name of the file.
+     * @return True if the file starts with the magic number of the binary maps.
+     * @throws IOException If the file cannot be read.
+     * @roseuid 5837D40A0002
+     */
+    public static boolean isBinaryMap(String filename) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(filename, "r");
+        try {
+            return file.length() >= 4 && file.readInt() == BinaryMap.MAGIC;
+        } finally {
+            file.close();
+        }
+    }
+
+    /**
+     * Reads a binary map file. The file is memory-mapped, and the distance field is copied from it in bulk.
+     *
+     * @param filename Name of the file.
+     * @return The loaded map.
+     * @throws MapFormatException If the file is not a valid binary map. The position of the problem is given as line 1
+     *             and the byte offset as column.
+     * @throws IOException If the file cannot be read.
+     * @roseuid 5837D40A0003
+     */
+    static BinaryMap read(String filename) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(filename, "r");
+        try {
+            FileChannel channel = file.getChannel();
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new MapFormatException(filename, 1, 1, "file is too large (" + channel.size() + " bytes)");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return BinaryMap.read(filename, buffer);
+        } finally {
+            file.close();
+        }
+    }
+
+    /**
+     * Reads a binary map from the content of its file.
+     *
+     * @param filename Name of the file, for the error messages.
+     * @param buffer Content of the file.
+     * @return The loaded map.
+     * @throws MapFormatException If the content is not a valid binary map.
+     * @roseuid 5837D40A0004
+     */
+    private static BinaryMap read(String filename, ByteBuffer buffer) throws MapFormatException {
+        int size = buffer.limit();
+        if (size < BinaryMap.HEADER_SIZE + 4) {
+            throw new MapFormatException(filename, 1, size + 1, "truncated header");
+        }
+
+        // The checksum is verified first, so that the rest of the content can be trusted.
+        CRC32 crc = new CRC32();
+        ByteBuffer content = buffer.duplicate();
+        content.limit(size - 4);
+        crc.update(content);
+        if ((int) crc.getValue() != buffer.getInt(size - 4)) {
+            throw new MapFormatException(filename, 1, size - 3, "checksum mismatch, the file is corrupted");
+        }
+
+        if (buffer.getInt() != BinaryMap.MAGIC) {
+            throw new MapFormatException(filename, 1, 1, "not a binary map");
+        }
+        int version = buffer.getInt();
+        if (version != BinaryMap.VERSION) {
+            throw new MapFormatException(filename, 1, 5, "unsupported version " + version);
+        }
+        int lineCount = buffer.getInt();
+        int columnCount = buffer.getInt();
+        if (lineCount <= 0 || columnCount <= 0 || (long) lineCount * columnCount > Integer.MAX_VALUE) {
+            throw new MapFormatException(filename, 1, 9, "invalid dimensions " + lineCount + "x" + columnCount);
+        }
+        int cellCount = lineCount * columnCount;
+        int entryCell = BinaryMap.readCell(filename, buffer, cellCount);
+        int exitCell = BinaryMap.readCell(filename, buffer, cellCount);
+        int runCount = buffer.getInt();
+        long expectedSize = BinaryMap.HEADER_SIZE + (long) runCount * BinaryMap.RUN_SIZE + 4L * cellCount + 4;
+        if (runCount < 0 || expectedSize != size) {
+            throw new MapFormatException(filename, 1, BinaryMap.HEADER_SIZE - 3,
+                            "the file has " + size + " bytes, expected " + expectedSize);
+        }
+
+        byte[] cells = new byte[cellCount];
+        int cell = 0;
+        for (int run = 0; run < runCount; run++) {
+            int offset = buffer.position();
+            int type = buffer.get() & 0xFF;
+            int length = buffer.getInt();
+            if (type >= BinaryMap.TYPE_COUNT || length <= 0 || length > cellCount - cell) {
+                throw new MapFormatException(filename, 1, offset + 1, "invalid run of " + length + " tiles of type "
+                                + type);
+            }
+            // A run can span several lines.
+            Arrays.fill(cells, cell, cell + length, (byte) type);
+            cell += length;
+        }
+        if (cell != cellCount) {
+            throw new MapFormatException(filename, 1, buffer.position() + 1, "the runs cover " + cell + " of the "
+                            + cellCount + " tiles");
+        }
+
+        int[] distanceField = new int[cellCount];
+        buffer.asIntBuffer().get(distanceField);
+
+        return new BinaryMap(lineCount, columnCount, cells, entryCell, exitCell, distanceField);
+    }
+
+    /**
+     * Reads the cell of the entry point or of the exit point.
+     *
+     * @param filename Name of the file, for the error messages.
+     * @param buffer Content of the file, positioned on the cell.
+     * @param cellCount Number of cells of the map.
+     * @return The cell, or -1.
+     * @throws MapFormatException If the cell is outside of the map.
+     * @roseuid 5837D40A0005
+     */
+    private static int readCell(String filename, ByteBuffer buffer, int cellCount) throws MapFormatException {
+        int offset = buffer.position();
+        int cell = buffer.getInt();
+        if (cell < -1 || cell >= cellCount) {
+            throw new MapFormatException(filename, 1, offset + 1, "cell " + cell + " is outside of the map");
+        }
+        return cell;
+    }
+
+    /**
+     * Writes a grid as a binary map file.
+     *
+     * @param grid Grid to write.
+     * @param filename Name of the file.
+     * @throws IOException If the file cannot be written.
+     * @roseuid 5837D40A0006
+     */
+    public static void write(GameGrid grid, String filename) throws IOException {
+        byte[] cells = grid.cells;
+        int columnCount = grid.getColumns();
+
+        // The runs are counted first, the header giving their number.
+        int runCount = 1;
+        for (int cell = 1; cell < cells.length; cell++) {
+            if (cells[cell] != cells[cell - 1]) {
+                runCount++;
+            }
+        }
+
+        CRC32 crc = new CRC32();
+        FileOutputStream file = new FileOutputStream(filename);
+        DataOutputStream output = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(file,
+                        1 << 16), crc));
+        try {
+            output.writeInt(BinaryMap.MAGIC);
+            output.writeInt(BinaryMap.VERSION);
+            output.writeInt(grid.getRows());
+            output.writeInt(columnCount);
+            output.writeInt(BinaryMap.cellOf(grid.entryPoint(), columnCount));
+            output.writeInt(BinaryMap.cellOf(grid.exitPoint(), columnCount));
+            output.writeInt(runCount);
+
+            int runStart = 0;
+            for (int cell = 1; cell <= cells.length; cell++) {
+                if (cell == cells.length || cells[cell] != cells[runStart]) {
+                    output.writeByte(cells[runStart]);
+                    output.writeInt(cell - runStart);
+                    runStart = cell;
+                }
+            }
+
+            for (int distance : grid.distanceField()) {
+                output.writeInt(distance);
+            }
+
+            // The checksum itself is not part of the checked content.
+            output.flush();
+            new DataOutputStream(file).writeInt((int) crc.getValue());
+        } finally {
+            output.close();
+        }
+    }
+
+    /**
+     * Gets the cell of a location.
+     *
+     * @param location Location, or null.
+     * @param columnCount Number of columns of the map.
+     * @return The cell, or -1 if the location is null.
+     * @roseuid 5837D40A0007
+     */
+    private static int cellOf(GridLocation location, int columnCount) {
+        return location == null ? -1 : location.x * columnCount + location.y;
+    }
+
+    /**
+     * Entry point of the converter from the text maps to the binary maps.
+     *
+     * @param args Text map file, then binary map file to write.
+     * @throws IOException If a file cannot be read or written.
+     * @roseuid 5837D40A0008
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.out.println("Usage: BinaryMap <text map file> <binary map file>");
+            return;
+        }
+        GameGrid grid = new GameGrid();
+        grid.readFromFile(args[0], false);
+        BinaryMap.write(grid, args[1]);
+
+        System.out.println(String.format("%s: %dx%d map written to %s", args[0], grid.getRows(), grid.getColumns(),
+                        args[1]));
+    }
+
+}
@@ -1,6 +1,5 @@
 package model;
 
-import java.awt.Point;
 import java.io.BufferedReader;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -9,10 +8,24 @@ import java.io.InputStreamReader;
 import java.io.PrintWriter;
 import java.sql.Date;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Observable;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import model.GameGrid.CASE_TYPES;
+import model.event.GameEvent;
+import model.event.GameEventBus;
+import model.event.GameEventListener;
+import model.event.GhostKilledEvent;
+import model.event.GhostMovedEvent;
+import model.event.GhostSpawnedEvent;
+import model.event.MoneyChangedEvent;
+import model.event.TowerFiredEvent;
+import model.event.TowerPlacedEvent;
+import model.event.WaveEndedEvent;
 import model.tower.ExplosionTower;
 import model.tower.FireTower;
 import model.tower.IceTower;
@@ -20,13 +33,15 @@ import model.tower.Tower;
 import model.tower.TowerFactory;
 
 /**
- * This class implements the main gaming logic in which user can buy, sell, upgrade towers. It is also observable so
- * that a view class can be notified of internal changes.
+ * This class implements the main gaming logic in which user can buy, sell, upgrade towers. The changes made to the game
+ * are fired as typed events, delivered in one batch per turn and per user action to the listeners subscribed through
+ * addListener. The views never change the game themselves: they submit their actions, which the game thread runs
+ * between two turns, and read the game through the snapshots it publishes.
  *
  * @author SnapDragon
  *
  */
-public class Game extends Observable {
+public class Game {
 
     /**
      * Initial amount of money that the player has to buy towers.
@@ -48,6 +63,16 @@ public class Game extends Observable {
      */
     private static final int WAVES_TO_WIN = 3;
 
+    /**
+     * Phases of a turn, as indexed in the array given to setPhaseTimer.
+     */
+    public static final int PHASE_MOVE = 0;
+    public static final int PHASE_SPAWN = 1;
+    public static final int PHASE_ATTACK = 2;
+    public static final int PHASE_REMOVE = 3;
+    public static final int PHASE_NOTIFY = 4;
+    public static final String[] PHASE_NAMES = {"move", "spawn", "attack", "remove", "notify"};
+
     /**
      * List of available towers that the user can buy.
      */
@@ -55,30 +80,130 @@ public class Game extends Observable {
     public int deadCount = INITIAL_LIVES;
 
     public GameGrid grid;
-    public HashMap<Point, Ghost> ghosts = new HashMap<Point, Ghost>();
-    public ArrayList<GridLocation> attackedGhosts;
+    public GhostStore ghosts;
     public Path shortestPath;
     public boolean startlog = true;
 
-    private HashMap<Point, Tower> towers = new HashMap<Point, Tower>();
+    /**
+     * Towers placed on the grid, indexed by cell id (line * columnCount + column), and the same towers in a compact
+     * list used to go through them. As in the ghost store, the slot of every tower in the list is kept per cell and
+     * the cell per slot, and removing a tower moves the last tower of the list into its slot.
+     */
+    private Tower[] towerCells;
+    private int[] towerSlots;
+    private int[] slotCells = new int[16];
+    private ArrayList<Tower> towers = new ArrayList<Tower>();
     private int money;
-    private GameThread gameThread;
+    private volatile GameThread gameThread;
+
+    /**
+     * Number of turns played per second by the game thread during the waves.
+     */
+    private volatile double ticksPerSecond = 1000.0 / GameThread.DEFAULT_DELAY;
+
+    /**
+     * Actions submitted by the views, waiting to be run by the game thread.
+     */
+    private ConcurrentLinkedQueue<Runnable> commands = new ConcurrentLinkedQueue<Runnable>();
     private int ghostsReleased;
     private int lives;
     private int wave;
     private int killedGhosts = 0;
+    private volatile boolean waveInProgress = false;
+
+    /**
+     * Random source of the game, created from its seed. Playing the same actions on a game with the same seed and the
+     * same grid gives the same game.
+     */
+    private long seed;
+    private SplittableRandom random;
+
+    /**
+     * Cells of the ghosts attacked during the last turn, reused from one turn to the next.
+     */
+    private int[] attackedCells = new int[16];
+    private int attackedCount = 0;
+    private long allocationCount = 0;
+
+    /**
+     * Time spent in every phase of the turns, in nanoseconds, when the turns are profiled.
+     */
+    private long[] phaseNanos;
+
+    /**
+     * Distance field of the grid, which the ghosts walk down to the exit point, and the cell of the exit point.
+     */
+    private int[] distances;
+    private int exitCell;
+
+    /**
+     * Cells of the ghosts to move during a turn, sorted from the nearest the exit point. The order of a turn is kept
+     * for the next one, and a stamp per slot of the ghost store marks the ghosts already listed in a turn.
+     */
+    private int[] movingCells = new int[16];
+    private int movingCount = 0;
+    private int[] listedSlots = new int[16];
+    private int listStamp = 0;
+
+    /**
+     * Cells that changed since the last snapshot was published, and a mark per cell to avoid duplicates.
+     */
+    private int[] dirtyCells = new int[16];
+    private int dirtyCount = 0;
+    private boolean[] dirtyMarks;
+
+    /**
+     * Bus delivering the events of the game to the listeners.
+     */
+    private GameEventBus events = new GameEventBus();
+
+    /**
+     * Last snapshot published for the views.
+     */
+    private volatile GameSnapshot snapshot;
+    private long snapshotSequence = 0;
 
     /**
      * Constructs the Game object with an empty 100x100 grid.
      * @roseuid 5837CF4002FA
      */
     public Game() {
-        this.grid = new GameGrid(100, 100);
+        this(new GameGrid(100, 100));
+    }
+
+    /**
+     * Constructs the Game object on an already loaded grid, with a random seed.
+     *
+     * @param grid Game grid on which the game is played.
+     * @roseuid 5837CF4002FB
+     */
+    public Game(GameGrid grid) {
+        this(grid, new SplittableRandom().nextLong());
+    }
+
+    /**
+     * Constructs the Game object on an already loaded grid, with the specified seed.
+     *
+     * @param grid Game grid on which the game is played.
+     * @param seed Seed of the random source of the game.
+     * @roseuid 5837CF4002FC
+     */
+    public Game(GameGrid grid, long seed) {
+        this.grid = grid;
+        this.seed = seed;
+        this.random = new SplittableRandom(seed);
+        this.ghosts = new GhostStore(grid.getRows(), grid.getColumns());
+        this.towerCells = new Tower[grid.getRows() * grid.getColumns()];
+        this.towerSlots = new int[this.towerCells.length];
+        this.dirtyMarks = new boolean[this.towerCells.length];
         this.money = Game.INITIAL_MONEY;
         this.lives = Game.INITIAL_LIVES;
-        this.shortestPath = new Path(this.grid);
+        this.shortestPath = this.grid.shortestPath();
+        this.distances = this.grid.distanceField();
+        GridLocation exitPoint = this.grid.exitPoint();
+        this.exitCell = exitPoint == null ? -1 : exitPoint.x * grid.getColumns() + exitPoint.y;
         this.wave = 1;
-        this.attackedGhosts = new ArrayList<GridLocation>();
+        this.snapshot = new GameSnapshot(this, this.snapshotSequence, new int[0], null);
     }
 
     /**
@@ -98,7 +223,63 @@ public class Game extends Observable {
      * @roseuid 5837CF40CFAA
      */
     public void setMoney(int money) {
-        this.money = money;
+        this.changeMoney(money - this.money);
+    }
+
+    /**
+     * Adds money to the player, or takes it if the amount is negative.
+     *
+     * @param amount Amount of money earned by the player.
+     * @roseuid 5837CF40CFAB
+     */
+    private void changeMoney(int amount) {
+        int previousMoney = this.money;
+        this.money += amount;
+        if (this.events.isSubscribed(GameEvent.Type.MONEY_CHANGED)) {
+            this.events.fire(new MoneyChangedEvent(previousMoney, this.money));
+        }
+    }
+
+    /**
+     * Subscribes a listener to some types of events of the game.
+     *
+     * @param listener Listener to add.
+     * @param types Types of events the listener receives.
+     * @roseuid 5837CF40CFAC
+     */
+    public void addListener(GameEventListener listener, Set<GameEvent.Type> types) {
+        this.events.subscribe(listener, types);
+    }
+
+    /**
+     * Unsubscribes a listener from the events of the game.
+     *
+     * @param listener Listener to remove.
+     * @roseuid 5837CF40CFAD
+     */
+    public void removeListener(GameEventListener listener) {
+        this.events.unsubscribe(listener);
+    }
+
+    /**
+     * Gets the seed of the random source of the game, needed to replay it.
+     *
+     * @return The seed of the game.
+     * @roseuid 5837CF401244
+     */
+    public long getSeed() {
+        return this.seed;
+    }
+
+    /**
+     * Creates a new random source from the one of the game, for work that should be reproducible from the seed of the
+     * game without changing the draws of the game itself, such as a parallel simulation of the game.
+     *
+     * @return A new independent random source.
+     * @roseuid 5837CF401245
+     */
+    public SplittableRandom splitRandom() {
+        return this.random.split();
     }
 
     /**
@@ -109,13 +290,13 @@ public class Game extends Observable {
      * @param column Column where to place the new tower.
      * @roseuid 5837CB4400CD
      */
-    public void buyTower(Tower tower, int line, int column) {
+    public synchronized void buyTower(Tower tower, int line, int column) {
         if (tower.getInitialCost() > this.money) {
             return;
         } else if (this.hasTower(line, column)) {
             return;
         }
-        this.money -= tower.getInitialCost();
+        this.changeMoney(-tower.getInitialCost());
         Tower newTower = TowerFactory.createTower(tower.getName());
         newTower.setLocation(new GridLocation(line, column));
         this.addTower(newTower, line, column);
@@ -128,12 +309,17 @@ public class Game extends Observable {
      * @param column Column where to place the new tower.
      * @roseuid 5837CB4400AD
      */
-    public void sellTower(int line, int column) {
+    public synchronized void sellTower(int line, int column) {
         Tower tower = this.getTower(line, column);
-        this.money += tower.refundAmout();
-        this.towers.remove(new Point(line, column));
-        this.setChanged();
-        this.notifyObservers();
+        // The tower may already be gone when the view acted on an old snapshot.
+        if (tower == null) {
+            return;
+        }
+        this.changeMoney(tower.refundAmout());
+        this.removeTower(this.cellOf(line, column));
+        this.markDirty(this.cellOf(line, column));
+        this.retireTower(tower);
+        this.notifyChanges();
     }
 
     /**
@@ -144,11 +330,54 @@ public class Game extends Observable {
      * @param column Column where to place the new tower.
      * @roseuid 5837BB4400AA
      */
-    public void addTower(Tower t, int line, int column) {
-        Point location = new Point(line, column);
-        this.towers.put(location, t);
-        this.setChanged();
-        this.notifyObservers();
+    public synchronized void addTower(Tower t, int line, int column) {
+        int cell = this.cellOf(line, column);
+        if (this.towerCells[cell] != null) {
+            this.retireTower(this.towerCells[cell]);
+            this.removeTower(cell);
+        }
+        if (this.towers.size() == this.slotCells.length) {
+            this.slotCells = Arrays.copyOf(this.slotCells, this.slotCells.length * 2);
+        }
+        this.towerCells[cell] = t;
+        this.towerSlots[cell] = this.towers.size();
+        this.slotCells[this.towers.size()] = cell;
+        this.towers.add(t);
+        t.buildCoverage(this.grid);
+        this.markDirty(cell);
+        if (this.events.isSubscribed(GameEvent.Type.TOWER_PLACED)) {
+            this.events.fire(new TowerPlacedEvent(t.getTowerID(), cell, t.getName()));
+        }
+        this.notifyChanges();
+    }
+
+    /**
+     * Removes the tower placed on a cell from the grid. The last tower of the list takes the slot of the removed one.
+     *
+     * @param cell Id of the cell of the tower.
+     * @roseuid 5837BB4400AC
+     */
+    private void removeTower(int cell) {
+        int slot = this.towerSlots[cell];
+        int lastSlot = this.towers.size() - 1;
+        Tower last = this.towers.remove(lastSlot);
+        if (slot != lastSlot) {
+            this.towers.set(slot, last);
+            this.slotCells[slot] = this.slotCells[lastSlot];
+            this.towerSlots[this.slotCells[slot]] = slot;
+        }
+        this.towerCells[cell] = null;
+    }
+
+    /**
+     * Keeps the allocations made by a tower removed from the grid in the allocation count of the game, so that the
+     * count never goes down.
+     *
+     * @param tower Tower removed from the grid.
+     * @roseuid 5837BB4400AB
+     */
+    private void retireTower(Tower tower) {
+        this.allocationCount += tower.getAttackStrategy().getAllocationCount();
     }
 
     /**
@@ -161,8 +390,7 @@ public class Game extends Observable {
      * @roseuid 5837CB4100AA
      */
     public boolean hasTower(int line, int column) {
-        Point location = new Point(line, column);
-        return this.towers.get(location) != null;
+        return this.getTower(line, column) != null;
     }
 
     /**
@@ -175,28 +403,63 @@ public class Game extends Observable {
      * @roseuid 5837CB440000
      */
     public Tower getTower(int line, int column) {
-        Point location = new Point(line, column);
-        return this.towers.get(location);
+        if (line < 0 || line >= this.grid.getRows() || column < 0 || column >= this.grid.getColumns()) {
+            return null;
+        }
+        return this.towerCells[this.cellOf(line, column)];
     }
 
     /**
      * Gets the towers.
      *
-     * @return Hash map of the tower on the grid, indexed by their location.
+     * @return List of the towers on the grid. The list must not be modified.
      * @roseuid 5837CB1400BD
      */
-    public HashMap<Point, Tower> getTowers() {
-        return towers;
+    public List<Tower> getTowers() {
+        return this.towers;
     }
 
     /**
-     * Sets the towers.
+     * Sets the towers. Every tower is placed at its own location, and the towers of the grid that are not part of the
+     * new ones are removed.
      *
-     * @param towers Hash map of the tower to place on the grid, indexed by their location.
+     * @param towers Towers to place on the grid.
      * @roseuid 5837CB440097
      */
-    public void setTowers(HashMap<Point, Tower> towers) {
-        this.towers = towers;
+    public synchronized void setTowers(Collection<Tower> towers) {
+        // The towers kept are taken off their cell first, so that only the
+        // removed ones are left on the grid.
+        for (Tower tower : towers) {
+            int cell = this.cellOf(tower.getLocation().x, tower.getLocation().y);
+            if (this.towerCells[cell] == tower) {
+                this.towerCells[cell] = null;
+            }
+        }
+        for (int slot = 0; slot < this.towers.size(); slot++) {
+            int cell = this.slotCells[slot];
+            if (this.towerCells[cell] != null) {
+                this.retireTower(this.towerCells[cell]);
+                this.towerCells[cell] = null;
+            }
+            this.markDirty(cell);
+        }
+        this.towers.clear();
+        for (Tower tower : towers) {
+            this.addTower(tower, tower.getLocation().x, tower.getLocation().y);
+        }
+    }
+
+    /**
+     * Gets the id of a cell of the grid.
+     *
+     * @param line Line of the cell.
+     * @param column Column of the cell.
+     *
+     * @return line * columnCount + column
+     * @roseuid 5837CB440098
+     */
+    private int cellOf(int line, int column) {
+        return line * this.grid.getColumns() + column;
     }
 
     /**
@@ -206,27 +469,144 @@ public class Game extends Observable {
      * @param column Column of the tower to upgrade.
      * @roseuid 5837BC4412CD
      */
-    public void upgradeTower(int line, int column) {
+    public synchronized void upgradeTower(int line, int column) {
         Tower tower = this.getTower(line, column);
-        if (this.money >= tower.getLevelCost()) {
+        if (tower != null && this.money >= tower.getLevelCost()) {
             tower.upgradeLevel();
-            this.money -= tower.getLevelCost();
-            this.setChanged();
-            this.notifyObservers();
+            this.changeMoney(-tower.getLevelCost());
+            this.markDirty(this.cellOf(line, column));
+            this.notifyChanges();
         }
     }
 
     /**
-     * Initiates a new wave of ghosts.
+     * Initiates a new wave of ghosts, played by the game thread.
      * @roseuid 5837CA9A0348
      */
     public void sendWave() {
+        this.submit(new Runnable() {
+            @Override
+            public void run() {
+                Game.this.startWave();
+            }
+        });
+    }
+
+    /**
+     * Submits an action to the game thread, which runs it before its next turn, or right away between two waves. This
+     * is how the views change the game: they never wait for the turn being played, and the game is only changed by
+     * the game thread. The game thread is started by the first action submitted.
+     *
+     * @param command Action to run on the game thread.
+     * @roseuid 5837CA9A034C
+     */
+    public void submit(Runnable command) {
+        this.commands.add(command);
+        GameThread thread = this.gameThread;
+        if (thread == null) {
+            synchronized (this.commands) {
+                thread = this.gameThread;
+                if (thread == null) {
+                    thread = new GameThread(this, this.ticksPerSecond);
+                    this.gameThread = thread;
+                    thread.start();
+                }
+            }
+        }
+        thread.wakeUp();
+    }
+
+    /**
+     * Runs the actions submitted since the last call. Called by the game thread between two turns. An action that
+     * fails is reported and the next ones are still run, so that a failing action does not stop the game thread.
+     * @roseuid 5837CA9A034D
+     */
+    void runCommands() {
+        Runnable command = this.commands.poll();
+        while (command != null) {
+            try {
+                command.run();
+            } catch (RuntimeException exception) {
+                exception.printStackTrace();
+            }
+            command = this.commands.poll();
+        }
+    }
+
+    /**
+     * Forgets the game thread when it stops, so that the next action submitted starts a new one.
+     *
+     * @param thread Game thread that stopped.
+     * @roseuid 5837CA9A0350
+     */
+    void gameThreadStopped(GameThread thread) {
+        synchronized (this.commands) {
+            if (this.gameThread == thread) {
+                this.gameThread = null;
+            }
+        }
+    }
+
+    /**
+     * Changes the number of turns played per second during the waves. Takes effect at the next tick if the game
+     * thread is already started.
+     *
+     * @param ticksPerSecond Number of game turns to play per second.
+     * @roseuid 5837CA9A034E
+     */
+    public void setTicksPerSecond(double ticksPerSecond) {
+        if (ticksPerSecond <= 0) {
+            throw new IllegalArgumentException("Invalid tick rate " + ticksPerSecond);
+        }
+        synchronized (this.commands) {
+            this.ticksPerSecond = ticksPerSecond;
+            if (this.gameThread != null) {
+                this.gameThread.setTicksPerSecond(ticksPerSecond);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of turns played per second during the waves.
+     *
+     * @return The tick rate of the game thread.
+     * @roseuid 5837CA9A034F
+     */
+    public double getTicksPerSecond() {
+        return this.ticksPerSecond;
+    }
+
+    /**
+     * Pauses the wave currently played by the game thread.
+     * @roseuid 5837CA9A034A
+     */
+    public void pauseWave() {
         if (this.gameThread != null) {
+            this.gameThread.pauseThread();
+        }
+    }
+
+    /**
+     * Resumes the wave paused with pauseWave.
+     * @roseuid 5837CA9A034B
+     */
+    public void resumeWave() {
+        if (this.gameThread != null) {
+            this.gameThread.resumeThread();
+        }
+    }
+
+    /**
+     * Initiates a new wave of ghosts without starting a game thread. The caller is then responsible for calling
+     * makeTurn until the wave is over. This is used to run the game headless.
+     * @roseuid 5837CA9A0349
+     */
+    public void startWave() {
+        if (this.waveInProgress) {
             return;
         }
         this.ghostsReleased = 0;
-        this.gameThread = new GameThread(this);
-        gameThread.start();
+        this.waveInProgress = true;
     }
 
     /**
@@ -235,10 +615,14 @@ public class Game extends Observable {
      * @param ghost The ghost to place on the grid.
      * @roseuid 5837CA9A0399
      */
-    public void addGhost(Ghost ghost) {
-        this.ghosts.put(ghost.gridLocation, ghost);
-        this.setChanged();
-        this.notifyObservers();
+    public synchronized void addGhost(Ghost ghost) {
+        int cell = ghost.gridLocation.x * this.ghosts.getColumnCount() + ghost.gridLocation.y;
+        this.ghosts.add(ghost.ghostID, cell, ghost.getHealthPoints(), ghost.getLevel(), ghost.getMovementPoints());
+        this.markDirty(cell);
+        if (this.events.isSubscribed(GameEvent.Type.GHOST_SPAWNED)) {
+            this.events.fire(new GhostSpawnedEvent(ghost.ghostID, cell, ghost.getLevel()));
+        }
+        this.notifyChanges();
     }
 
     /**
@@ -250,7 +634,39 @@ public class Game extends Observable {
      * @roseuid 5837CA9A03DD
      */
     public boolean hasGhost(GridLocation location) {
-        return (this.ghosts.get(location) != null);
+        return this.ghosts.slotAt(location.x, location.y) != -1;
+    }
+
+    /**
+     * Gets the ghost at the specified location on the grid.
+     *
+     * @param location Location of the ghost.
+     *
+     * @return A copy of the ghost at the location, or null if there is no ghost there.
+     * @roseuid 5837CA9A03DE
+     */
+    public Ghost getGhost(GridLocation location) {
+        int slot = this.ghosts.slotAt(location.x, location.y);
+        if (slot == -1) {
+            return null;
+        }
+        return this.ghosts.getGhost(slot);
+    }
+
+    /**
+     * Gets the ghost with the specified id.
+     *
+     * @param ghostID Id of the ghost.
+     *
+     * @return A copy of the ghost, or null if the ghost is not on the grid anymore.
+     * @roseuid 5837CA9A03DF
+     */
+    public Ghost getGhostById(int ghostID) {
+        int slot = this.ghosts.slotOf(ghostID);
+        if (slot == -1) {
+            return null;
+        }
+        return this.ghosts.getGhost(slot);
     }
 
     /**
@@ -262,7 +678,7 @@ public class Game extends Observable {
      * @roseuid 5837CA9A03AB
      */
     public boolean noGhost(GridLocation location) {
-        return (this.grid.getCases()[location.x][location.y] == CASE_TYPES.ROAD && this.ghosts.get(location) == null);
+        return (this.grid.getCase(location.x, location.y) == CASE_TYPES.ROAD && !this.hasGhost(location));
     }
 
     /**
@@ -270,25 +686,141 @@ public class Game extends Observable {
      * points, etc.
      * @roseuid 5837CA9A76FD
      */
-    public void makeTurn() {
+    public synchronized void makeTurn() {
 
-        this.attackedGhosts.clear();
+        long time = this.phaseNanos == null ? 0 : System.nanoTime();
+        this.attackedCount = 0;
 
-        for (Ghost ghost : this.ghosts.values()) {
-            ghost.makeTurn();
+        for (int slot = 0; slot < this.ghosts.size(); slot++) {
+            this.ghosts.makeTurn(slot);
         }
 
         this.moveGhosts();
+        time = this.endPhase(Game.PHASE_MOVE, time);
         this.addNewGhosts();
+        time = this.endPhase(Game.PHASE_SPAWN, time);
         this.attackGhosts();
+        time = this.endPhase(Game.PHASE_ATTACK, time);
         this.removeDeadGhosts();
 
         if (this.ghosts.size() == 0 && this.ghostsReleased == Game.GHOSTS_PER_WAVE) {
             this.endTurn();
         }
+        time = this.endPhase(Game.PHASE_REMOVE, time);
 
-        this.setChanged();
-        this.notifyObservers();
+        this.notifyChanges();
+        this.endPhase(Game.PHASE_NOTIFY, time);
+    }
+
+    /**
+     * Starts or stops profiling the turns. While profiling, the time spent in every phase of the turns is added to the
+     * specified array, indexed by PHASE_MOVE, PHASE_SPAWN, PHASE_ATTACK, PHASE_REMOVE and PHASE_NOTIFY.
+     *
+     * @param phaseNanos Array of PHASE_NAMES.length times in nanoseconds, or null to stop profiling.
+     * @roseuid 5837CA9A76FA
+     */
+    public void setPhaseTimer(long[] phaseNanos) {
+        this.phaseNanos = phaseNanos;
+    }
+
+    /**
+     * Adds the time spent in a phase of the turn to the phase timer, if the turns are profiled.
+     *
+     * @param phase Index of the phase.
+     * @param start Time at which the phase started, in nanoseconds.
+     * @return The time at which the phase ended, or 0 if the turns are not profiled.
+     * @roseuid 5837CA9A76FB
+     */
+    private long endPhase(int phase, long start) {
+        if (this.phaseNanos == null) {
+            return 0;
+        }
+        long end = System.nanoTime();
+        this.phaseNanos[phase] += end - start;
+        return end;
+    }
+
+    /**
+     * Publishes a new snapshot and delivers the events fired since the last notification to the listeners. Nothing is
+     * published when no listener subscribed to the events fired, so that a headless game does not pay for the
+     * notifications: the cells that changed are then kept for the next snapshot.
+     * @roseuid 5837CA9A76FE
+     */
+    private void notifyChanges() {
+        if (this.events.hasPendingEvents()) {
+            this.publishSnapshot();
+            this.events.deliver(this.snapshot);
+        }
+    }
+
+    /**
+     * Publishes an immutable snapshot of the current state of the game, then forgets the cells that changed. Only
+     * called by the thread changing the game, so that the views never have to take the lock of the game.
+     * @roseuid 5837CA9A7702
+     */
+    private void publishSnapshot() {
+        int[] dirty = Arrays.copyOf(this.dirtyCells, this.dirtyCount);
+        this.snapshot = new GameSnapshot(this, ++this.snapshotSequence, dirty, this.snapshot);
+        for (int i = 0; i < this.dirtyCount; i++) {
+            this.dirtyMarks[this.dirtyCells[i]] = false;
+        }
+        this.dirtyCount = 0;
+    }
+
+    /**
+     * Gets the last snapshot published by the game, with the events delivered to the listeners. The views and
+     * controllers should only read the game through snapshots, which can be read from any thread without locking while
+     * the game thread plays the next turn.
+     *
+     * @return An immutable snapshot of the game.
+     * @roseuid 5837CA9A7703
+     */
+    public GameSnapshot getSnapshot() {
+        return this.snapshot;
+    }
+
+    /**
+     * Records that the content of a cell changed: a ghost moved in or out, a tower was placed, sold or upgraded, or
+     * a ghost on it was attacked. Nothing is recorded while no listener is subscribed, as no snapshot is published
+     * then: a headless game would otherwise keep every cell its ghosts ever walked on. A listener subscribing later
+     * draws the whole game from the first snapshot it receives.
+     *
+     * @param cell Id of the cell that changed.
+     * @roseuid 5837CA9A76FF
+     */
+    private void markDirty(int cell) {
+        if (this.dirtyMarks[cell] || !this.events.hasListeners()) {
+            return;
+        }
+        if (this.dirtyCount == this.dirtyCells.length) {
+            this.allocationCount++;
+            this.dirtyCells = Arrays.copyOf(this.dirtyCells, this.dirtyCount * 2);
+        }
+        this.dirtyMarks[cell] = true;
+        this.dirtyCells[this.dirtyCount++] = cell;
+    }
+
+    /**
+     * Gets the number of cells that changed since the last snapshot was published. Listeners should only redraw
+     * these cells.
+     *
+     * @return The number of changed cells.
+     * @roseuid 5837CA9A7700
+     */
+    public int getDirtyCount() {
+        return this.dirtyCount;
+    }
+
+    /**
+     * Gets a cell that changed since the last snapshot was published.
+     *
+     * @param index Index of the changed cell, between 0 and getDirtyCount() - 1.
+     *
+     * @return The id of the cell (line * columnCount + column).
+     * @roseuid 5837CA9A7701
+     */
+    public int getDirtyCell(int index) {
+        return this.dirtyCells[index];
     }
 
     /**
@@ -297,22 +829,66 @@ public class Game extends Observable {
      */
     private synchronized void attackGhosts() {
         // Towers attacking if the turn is not over.
-        GridLocation attackedLocation = null;
-        for (Tower tower : this.towers.values()) {
-            ArrayList<Ghost> aliveGhosts = new ArrayList<Ghost>();
-            for (Ghost ghost : this.ghosts.values()) {
-                if (!ghost.isDead()) {
-                    aliveGhosts.add(ghost);
+        for (int i = 0; i < this.towers.size(); i++) {
+            Tower tower = this.towers.get(i);
+            int attackedCell = tower.attack(this.ghosts, this.grid.exitPoint(), this.random);
+            if (attackedCell != -1) {
+                if (this.attackedCount == this.attackedCells.length) {
+                    this.allocationCount++;
+                    this.attackedCells = Arrays.copyOf(this.attackedCells, this.attackedCount * 2);
+                }
+                this.attackedCells[this.attackedCount++] = attackedCell;
+                this.markDirty(attackedCell);
+                if (this.events.isSubscribed(GameEvent.Type.TOWER_FIRED)) {
+                    GridLocation location = tower.getLocation();
+                    this.events.fire(new TowerFiredEvent(tower.getTowerID(), this.cellOf(location.x, location.y),
+                                    attackedCell));
                 }
-            }
-            attackedLocation = tower.attack(aliveGhosts, this.grid.exitPoint());
-            if (attackedLocation != null) {
-                this.attackedGhosts.add(attackedLocation);
             }
         }
 
     }
 
+    /**
+     * Gets the number of ghosts attacked by the towers during the last turn.
+     *
+     * @return The number of attacks made during the last turn.
+     * @roseuid 5837CA9A98CD
+     */
+    public int getAttackedCount() {
+        return this.attackedCount;
+    }
+
+    /**
+     * Gets the location of a ghost attacked during the last turn.
+     *
+     * @param index Index of the attack, between 0 and getAttackedCount() - 1.
+     *
+     * @return The id of the cell (line * columnCount + column) of the attacked ghost.
+     * @roseuid 5837CA9A98CE
+     */
+    public int getAttackedCell(int index) {
+        return this.attackedCells[index];
+    }
+
+    /**
+     * Gets the number of allocations the game made to grow its internal buffers while playing turns, including the
+     * ghost store and the attack strategies of the towers. The allocations of the towers sold or replaced are still
+     * counted. In a headless game, once the buffers have reached the size needed by a wave, playing a turn does not
+     * allocate anymore and this count stays the same. This does not hold while a listener is subscribed: every
+     * notification then allocates a snapshot, the events and their batches, which are not counted here.
+     *
+     * @return The number of buffer allocations made by the game.
+     * @roseuid 5837CA9A98CF
+     */
+    public long getAllocationCount() {
+        long count = this.allocationCount + this.ghosts.getAllocationCount();
+        for (int i = 0; i < this.towers.size(); i++) {
+            count += this.towers.get(i).getAttackStrategy().getAllocationCount();
+        }
+        return count;
+    }
+
     /**
      * Add new ghosts on the grid, coming from the entry point.
      * @roseuid 5837CA9BCDAA
@@ -321,15 +897,19 @@ public class Game extends Observable {
         if (Game.GHOSTS_PER_WAVE > this.ghostsReleased) {
 
             GridLocation start = this.shortestPath.getShortestPath().get(0);
+            int startCell = start.x * this.ghosts.getColumnCount() + start.y;
 
             // This means a ghost is blocking the entry.
-            if (this.ghosts.get(start) != null) {
+            if (this.ghosts.slotAt(startCell) != -1) {
                 return;
             }
 
-            Ghost critty = new Ghost(start, this.wave);
-            this.addGhost(critty);
+            int slot = this.ghosts.spawn(startCell, this.wave);
             this.ghostsReleased++;
+            this.markDirty(startCell);
+            if (this.events.isSubscribed(GameEvent.Type.GHOST_SPAWNED)) {
+                this.events.fire(new GhostSpawnedEvent(this.ghosts.getId(slot), startCell, this.wave));
+            }
 
         }
     }
@@ -339,23 +919,61 @@ public class Game extends Observable {
      * @roseuid 5837CA9A99AD
      */
     private synchronized void moveGhosts() {
-        ArrayList<GridLocation> shortestPath = this.shortestPath.getShortestPath();
+        int ghostCount = this.ghosts.size();
+        if (ghostCount > this.movingCells.length) {
+            this.allocationCount++;
+            int capacity = Math.max(ghostCount, this.movingCells.length * 2);
+            this.movingCells = Arrays.copyOf(this.movingCells, capacity);
+            this.listedSlots = Arrays.copyOf(this.listedSlots, capacity);
+        }
+
+        // We go through the ghosts from the nearest the exit point. This is
+        // to make sure that a ghost moves out of the way before the ghost
+        // behind it tries to move. The ghosts still on the grid keep their
+        // order of the last turn, and the ghosts that arrived since are
+        // added at the end, next to the entry point. The list is then nearly
+        // sorted, and the insertion sort only moves the few ghosts that
+        // passed another one.
+        this.listStamp++;
+        int count = 0;
+        for (int i = 0; i < this.movingCount; i++) {
+            int cell = this.movingCells[i];
+            int slot = this.ghosts.slotAt(cell);
+            if (slot != -1 && this.listedSlots[slot] != this.listStamp) {
+                this.listedSlots[slot] = this.listStamp;
+                this.movingCells[count++] = cell;
+            }
+        }
+        for (int slot = 0; count < ghostCount && slot < ghostCount; slot++) {
+            if (this.listedSlots[slot] != this.listStamp) {
+                this.movingCells[count++] = this.ghosts.getCell(slot);
+            }
+        }
+        this.movingCount = ghostCount;
 
-        // We go through the shortest path in reverse order. This is
-        // to make sure that moving a ghost forward does not overwrite
-        // another ghost that was on the next location on the path.
-        for (int i = shortestPath.size() - 1; i >= 0; i--) {
+        for (int j = 1; j < ghostCount; j++) {
+            int cell = this.movingCells[j];
+            int distance = this.distances[cell];
+            int i = j;
+            while (i > 0 && this.distances[this.movingCells[i - 1]] > distance) {
+                this.movingCells[i] = this.movingCells[i - 1];
+                i--;
+            }
+            this.movingCells[i] = cell;
+        }
 
-            GridLocation pathLocation = shortestPath.get(i);
-            Ghost ghost = this.ghosts.get(pathLocation);
+        for (int i = 0; i < ghostCount; i++) {
 
-            if (ghost == null || !ghost.shouldMove()) {
+            int cell = this.movingCells[i];
+            int slot = this.ghosts.slotAt(cell);
+
+            if (slot == -1 || !this.ghosts.shouldMove(slot)) {
                 continue;
             }
-            ghost.move();
+            this.ghosts.move(slot);
 
-            GridLocation nextLocation = this.shortestPath.getNextLocation(ghost.gridLocation);
-            if (nextLocation != null) {
+            int nextCell = this.nextStep(cell);
+            if (nextCell != this.exitCell) {
                 if (deadCount == this.lives){
                 }
                 else {
@@ -364,14 +982,18 @@ public class Game extends Observable {
             }
 
             // The ghost has reached the exit!
-            if (nextLocation == null) {
-                this.ghosts.remove(ghost.gridLocation);
+            if (nextCell == this.exitCell) {
+                this.markDirty(cell);
+                this.fireGhostMoved(slot, cell, -1);
+                this.ghosts.remove(slot);
                 this.lives--;
                 // There is another location the ghost can move to, and it is free.
-            } else if (ghosts.get(nextLocation) == null) {
-                this.ghosts.remove(ghost.gridLocation);
-                ghost.setLocation(nextLocation);
-                this.addGhost(ghost);
+            } else if (nextCell != -1 && this.ghosts.slotAt(nextCell) == -1) {
+                this.ghosts.moveTo(slot, nextCell);
+                this.movingCells[i] = nextCell;
+                this.markDirty(cell);
+                this.markDirty(nextCell);
+                this.fireGhostMoved(slot, cell, nextCell);
             }
 
         }
@@ -379,20 +1001,94 @@ public class Game extends Observable {
     }
 
     /**
-     * Remove the ghosts killed by the towers.
+     * Finds the cell a ghost steps to, among the neighbors of its cell nearer the exit point. A free neighbor is
+     * preferred to an occupied one, so that a ghost blocked on one route takes another one when there is one, then the
+     * neighbor nearest the exit. When several neighbors are equal, the first one is taken in the order left, up, down,
+     * right, as in the shortest path.
+     *
+     * @param cell Id of the cell of the ghost.
+     * @return Id of the neighbor, which is occupied if all of them are, or -1 if no neighbor is nearer the exit.
+     * @roseuid 5837CA9A99AF
+     */
+    private int nextStep(int cell) {
+        int columnCount = this.ghosts.getColumnCount();
+        int line = cell / columnCount;
+        int column = cell % columnCount;
+        int next = -1;
+
+        if (column > 0) {
+            next = this.betterStep(cell, cell - 1, next);
+        }
+        if (line > 0) {
+            next = this.betterStep(cell, cell - columnCount, next);
+        }
+        if (cell + columnCount < this.distances.length) {
+            next = this.betterStep(cell, cell + columnCount, next);
+        }
+        if (column < columnCount - 1) {
+            next = this.betterStep(cell, cell + 1, next);
+        }
+        return next;
+    }
+
+    /**
+     * Chooses the step of a ghost between a neighbor of its cell and the best step found so far.
+     *
+     * @param cell Id of the cell of the ghost.
+     * @param neighbor Id of the neighbor.
+     * @param best Id of the best step found so far, or -1.
+     * @return The neighbor if it is nearer the exit than the cell and a better step than the best one, otherwise the
+     *         best one.
+     * @roseuid 5837CA9A99B0
+     */
+    private int betterStep(int cell, int neighbor, int best) {
+        int distance = this.distances[neighbor];
+        if (distance == -1 || distance >= this.distances[cell]) {
+            return best;
+        }
+        if (best == -1) {
+            return neighbor;
+        }
+        boolean free = neighbor == this.exitCell || this.ghosts.slotAt(neighbor) == -1;
+        boolean bestFree = best == this.exitCell || this.ghosts.slotAt(best) == -1;
+        if (free != bestFree) {
+            return free ? neighbor : best;
+        }
+        return distance < this.distances[best] ? neighbor : best;
+    }
+
+    /**
+     * Fires the event of a ghost moving, if a listener subscribed to it.
+     *
+     * @param slot Slot of the ghost.
+     * @param fromCell Id of the cell the ghost left.
+     * @param toCell Id of the cell the ghost moved to, or -1 if it went through the exit point.
+     * @roseuid 5837CA9A99AE
+     */
+    private void fireGhostMoved(int slot, int fromCell, int toCell) {
+        if (this.events.isSubscribed(GameEvent.Type.GHOST_MOVED)) {
+            this.events.fire(new GhostMovedEvent(this.ghosts.getId(slot), fromCell, toCell));
+        }
+    }
+
+    /**
+     * Remove the ghosts killed by the towers. The dead ghosts are swapped out of the store in place.
      * @roseuid 5837CA9A00AD
      */
     private synchronized void removeDeadGhosts() {
-        HashMap<Point, Ghost> ghosts = new HashMap<Point, Ghost>();
-        for (Ghost ghost : this.ghosts.values()) {
-            if (!ghost.isDead()) {
-                ghosts.put(ghost.gridLocation, ghost);
-            } else {
-                this.money += ghost.getReward();
+        for (int slot = this.ghosts.size() - 1; slot >= 0; slot--) {
+            if (this.ghosts.isDead(slot)) {
+                int cell = this.ghosts.getCell(slot);
+                int reward = this.ghosts.getReward(slot);
                 this.killedGhosts++;
+                this.markDirty(cell);
+                if (this.events.isSubscribed(GameEvent.Type.GHOST_KILLED)) {
+                    this.events.fire(new GhostKilledEvent(this.ghosts.getId(slot), cell, reward));
+                }
+                this.changeMoney(reward);
+                this.ghosts.remove(slot);
             }
         }
-        this.ghosts = ghosts;
     }
 
     /**
@@ -443,7 +1139,7 @@ public class Game extends Observable {
      * @roseuid 5837BA9A4AB6
      */
     public boolean isMakingTurn() {
-        return this.gameThread != null;
+        return this.waveInProgress;
     }
 
     /**
@@ -451,13 +1147,16 @@ public class Game extends Observable {
      * @roseuid 5837BA9A0387
      */
     public void endTurn() {
-        if (this.gameThread != null) {
-            this.gameThread.stopThread();
-            this.gameThread = null;
-        }
+        this.waveInProgress = false;
         this.wave++;
+        for (int slot = 0; slot < this.ghosts.size(); slot++) {
+            this.markDirty(this.ghosts.getCell(slot));
+        }
         this.ghosts.clear();
         this.ghostsReleased = 0;
+        if (this.events.isSubscribed(GameEvent.Type.WAVE_ENDED)) {
+            this.events.fire(new WaveEndedEvent(this.wave - 1, this.lives, this.killedGhosts));
+        }
     }
 
     /**
@@ -1,18 +1,17 @@
 package model;
 
-import java.io.BufferedReader;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.io.PrintWriter;
 import java.sql.Date;
 import java.util.ArrayList;
-import java.util.Random;
+import java.util.Arrays;
+import java.util.SplittableRandom;
 
 /**
  * This class represents a game map, composed of a 2-dimension matrix of tiles. It implements methods for locating
- * different cells on the map and restoring maps from text files.
+ * different cells on the map and restoring maps from text files. The tiles are stored as one byte per cell, with a bit
+ * set of the walkable cells, so that large maps fit in memory and are read sequentially.
  *
  * @author SnapDragon
  */
@@ -31,11 +30,50 @@ public class GameGrid {
     public static String[] CASE_TYPES_ICON_PATHS =
                     {"icons/grass.jpg", "icons/grass2.jpg", "icons/road.jpg", "icons/start.png", "icons/end.png"};
 
+    private static final CASE_TYPES[] TYPES = CASE_TYPES.values();
+
+    /**
+     * Seed of the random source placing the bushes when a map is read without a random source of its own.
+     */
+    public static final long DEFAULT_BUSHES_SEED = 0x5837CBE9L;
+
     public int pathindex = 1;
     public String filePath = "";
 
-    CASE_TYPES[][] cases;
-    private Random randomGenerator = new Random();
+    /**
+     * Type of every cell of the grid, as the ordinal of its CASE_TYPES value, indexed by line * columnCount + column.
+     * One byte per cell, instead of a reference per cell and an array per line.
+     */
+    byte[] cells;
+    int lineCount;
+    int columnCount;
+
+    /**
+     * Cells a ghost can walk on, that is the cells that are neither grass nor bushes, one bit per cell.
+     */
+    long[] walkable;
+
+    /**
+     * Cached distance from every cell to the exit point, indexed by line * columnCount + column. It is volatile so that
+     * a grid can be shared by games played on different threads.
+     */
+    private volatile int[] distanceField;
+
+    /**
+     * Cached shortest path of the grid, published once it is calculated so that it can be shared as well.
+     */
+    private volatile Path shortestPath;
+
+    /**
+     * Index of the special cells of the grid, built when the cases are loaded or changed.
+     */
+    private GridLocation entryPoint;
+    private GridLocation exitPoint;
+
+    /**
+     * Cached list of the road tiles, only built when it is asked for.
+     */
+    private volatile ArrayList<GridLocation> road;
 
     /**
      * Constructs an empty GameGrid.
@@ -51,20 +89,26 @@ public class GameGrid {
      * @param columnCount user's choice for length
      */
     public GameGrid(int lineCount, int columnCount) {
-        this.cases = new CASE_TYPES[lineCount][columnCount];
-        for (int i = 0; i < lineCount; i++) {
-            for (int j = 0; j < columnCount; j++) {
-                this.cases[i][j] = CASE_TYPES.GRASS;
-            }
-        }
+        // Grass is the first type, so the cells are all grass.
+        this.setCells(lineCount, columnCount, new byte[lineCount * columnCount]);
     }
 
     /**
-     * Gets the cases used by the grid.
+     * Gets the cases used by the grid. The matrix is built from the cells of the grid at every call, so it should not
+     * be used for the frequent lookups, which getCase does without allocating. Changes made to the returned matrix
+     * have to be given to setCases.
+     *
+     * @return A new matrix holding the type of every tile, by line then column.
      * @roseuid 5837CBE90873
      */
     public CASE_TYPES[][] getCases() {
-        return this.cases;
+        CASE_TYPES[][] cases = new CASE_TYPES[this.lineCount][this.columnCount];
+        for (int i = 0; i < this.lineCount; i++) {
+            for (int j = 0; j < this.columnCount; j++) {
+                cases[i][j] = GameGrid.TYPES[this.cells[i * this.columnCount + j]];
+            }
+        }
+        return cases;
     }
 
     /**
@@ -74,78 +118,362 @@ public class GameGrid {
      * @roseuid 5837CBE904EA
      */
     public void setCases(CASE_TYPES[][] cases) {
-        this.cases = cases;
+        int lines = cases.length;
+        int columns = cases[0].length;
+        byte[] packed = new byte[lines * columns];
+        for (int i = 0; i < lines; i++) {
+            for (int j = 0; j < columns; j++) {
+                packed[i * columns + j] = (byte) cases[i][j].ordinal();
+            }
+        }
+        this.setCells(lines, columns, packed);
     }
 
     /**
-     * This method reads a serialized GameGrid object from a file specified by the user.
+     * Sets the cells of the grid, and indexes them.
+     *
+     * @param lines Number of lines of the grid.
+     * @param columns Number of columns of the grid.
+     * @param packedCells Ordinal of the type of every cell, indexed by line * columnCount + column.
+     * @roseuid 5837CBE904EB
+     */
+    void setCells(int lines, int columns, byte[] packedCells) {
+        this.lineCount = lines;
+        this.columnCount = columns;
+        this.cells = packedCells;
+        this.indexCases();
+    }
+
+    /**
+     * Gets the type of a tile.
+     *
+     * @param line Line of the tile.
+     * @param column Column of the tile.
+     * @return The type of the tile.
+     * @roseuid 5837CBE904EC
+     */
+    public CASE_TYPES getCase(int line, int column) {
+        return GameGrid.TYPES[this.cells[line * this.columnCount + column]];
+    }
+
+    /**
+     * Gets the number of lines of the grid.
+     *
+     * @return The number of lines.
+     * @roseuid 5837CBE904ED
+     */
+    public int getRows() {
+        return this.lineCount;
+    }
+
+    /**
+     * Gets the number of columns of the grid.
+     *
+     * @return The number of columns.
+     * @roseuid 5837CBE904EE
+     */
+    public int getColumns() {
+        return this.columnCount;
+    }
+
+    /**
+     * This method reads a serialized GameGrid object from a file specified by the user. The bushes are placed from
+     * DEFAULT_BUSHES_SEED, so that reading the same map always gives the same grid. The overload taking a random
+     * source should be used to place them from the seed of a game.
      *
      * @param filename Name of the file where the object is stored.
      * @param addRandomBushes Determines if random bushes should be generated randomly on the loaded grid.
      *
-     * @throws exception If the file could not be read or has the wrong format.
+     * @throws MapFormatException If the file has the wrong format.
+     * @throws IOException If the file could not be read.
      * @roseuid 5837CBE911AD
      */
-    public void readFromFile(String filename, Boolean addRandomBushes) {
+    public void readFromFile(String filename, Boolean addRandomBushes) throws IOException {
+        this.readFromFile(filename, addRandomBushes, new SplittableRandom(GameGrid.DEFAULT_BUSHES_SEED));
+    }
 
-        filePath = filename;
-        int linenumber = 0; 
-        int rows = 0;
-        int columns = 0;
+    /**
+     * This method reads a serialized GameGrid object from a file specified by the user. The file can be a text map or
+     * a binary map written by BinaryMap. The map is taken from the shared map cache, so a map file is only parsed
+     * again when it changes. The bushes are placed using the specified random source, so that the same seed always
+     * gives the same grid. The grid is left unchanged if the file cannot be loaded.
+     *
+     * @param filename Name of the file where the object is stored.
+     * @param addRandomBushes Determines if random bushes should be generated randomly on the loaded grid.
+     * @param random Random source used to place the bushes.
+     *
+     * @throws MapFormatException If the file has the wrong format, with the position of the problem in the file.
+     * @throws IOException If the file could not be read.
+     * @roseuid 5837CBE911AE
+     */
+    public void readFromFile(String filename, Boolean addRandomBushes, SplittableRandom random) throws IOException {
+        this.loadMap(MapCache.getShared().get(filename), addRandomBushes, random);
+        this.filePath = filename;
+    }
 
-        this.cases = new CASE_TYPES[1][1]; //
-        BufferedReader br = null;
+    /**
+     * Loads a parsed map. The grid shares the cells and the derived data of the map, which are never modified: only
+     * the cells of a grid with bushes are copied, the bushes being different from one game to the next.
+     *
+     * @param map Map to load.
+     * @param addRandomBushes Determines if random bushes should be generated randomly on the loaded grid.
+     * @param random Random source used to place the bushes.
+     * @roseuid 5837CBE911AF
+     */
+    public void loadMap(MapData map, Boolean addRandomBushes, SplittableRandom random) {
+        byte[] loadedCells = map.cells;
+        if (addRandomBushes) {
+            loadedCells = map.cells.clone();
+            byte grass = (byte) CASE_TYPES.GRASS.ordinal();
+            byte bush = (byte) CASE_TYPES.BUSH.ordinal();
+            for (int cell = 0; cell < loadedCells.length; cell++) {
+                if (loadedCells[cell] == grass && random.nextInt(100) > 92) {
+                    loadedCells[cell] = bush;
+                }
+            }
+        }
 
-        try {
-            br = new BufferedReader(new InputStreamReader(new FileInputStream(filename)));
-            String line = null;
+        // Bushes are only placed on grass, so they change neither the road nor the distance field.
+        this.filePath = map.getFilename();
+        this.cells = loadedCells;
+        this.lineCount = map.lineCount;
+        this.columnCount = map.columnCount;
+        this.walkable = map.walkable;
+        this.entryPoint = map.entryPoint;
+        this.exitPoint = map.exitPoint;
+        this.road = null;
+        this.distanceField = map.distanceField;
+        this.shortestPath = map.path;
+    }
 
-            line = br.readLine();
-            String[] tokens = line.split("\\s+");
-            rows = Integer.parseInt(tokens[0]);
-            columns = Integer.parseInt(tokens[1]);
+    /**
+     * Sets a distance field loaded with the cases instead of calculating it.
+     *
+     * @param distanceField Distance field of the current cases.
+     * @roseuid 5837CBE911B0
+     */
+    void setDistanceField(int[] distanceField) {
+        this.distanceField = distanceField;
+    }
 
-            this.cases = new CASE_TYPES[rows][columns];
+    /**
+     * Indexes the entry point, the exit point and the walkable cells of the grid, so that they can be served without
+     * scanning the grid. Also drops the derived data calculated for the previous cases. Has to be called every time
+     * the cases change.
+     * @roseuid 5837CBE911B1
+     */
+    private void indexCases() {
+        this.distanceField = null;
+        this.shortestPath = null;
+        this.road = null;
+        this.entryPoint = null;
+        this.exitPoint = null;
+        this.walkable = new long[(this.cells.length + 63) >>> 6];
+
+        byte grass = (byte) CASE_TYPES.GRASS.ordinal();
+        byte bush = (byte) CASE_TYPES.BUSH.ordinal();
+        byte start = (byte) CASE_TYPES.START.ordinal();
+        byte end = (byte) CASE_TYPES.END.ordinal();
+        for (int cell = 0; cell < this.cells.length; cell++) {
+            byte type = this.cells[cell];
+            if (type != grass && type != bush) {
+                this.walkable[cell >>> 6] |= 1L << cell;
+                if (type == start && this.entryPoint == null) {
+                    this.entryPoint = new GridLocation(cell / this.columnCount, cell % this.columnCount);
+                } else if (type == end && this.exitPoint == null) {
+                    this.exitPoint = new GridLocation(cell / this.columnCount, cell % this.columnCount);
+                }
+            }
+        }
+    }
 
-            for (int j = 0; j < rows; j++) {
+    /**
+     * Returns an array representing the connections between entry and exit points. The array holds three ints per
+     * cell, so the flat roadLabels should be used instead on large grids: the tiles are labeled in the same order.
+     *
+     * @returns Connectivity Array
+     * @roseuid 5837CBE922AC
+     */
+    public int[][][] connectivities() {
+        int[] labels = this.roadLabels();
+        int[][][] connectivities = new int[this.lineCount][this.columnCount][3];
+        this.pathindex = 1;
+        for (int cell = 0; cell < labels.length; cell++) {
+            if (labels[cell] != 0) {
+                int[] connectivity = connectivities[cell / this.columnCount][cell % this.columnCount];
+                connectivity[0] = 1;
+                connectivity[1] = labels[cell];
+                this.pathindex = Math.max(this.pathindex, labels[cell] + 1);
+            }
+        }
 
-                line = br.readLine();
-                tokens = line.split("\\s+");
+        return connectivities;
+    }
 
-                for (int i = 0; i < columns; i++) {
-                    int caseValue = Integer.parseInt(tokens[i]);
-                    this.cases[linenumber][i] = CASE_TYPES.values()[caseValue];
-                    if (addRandomBushes && this.cases[linenumber][i] == CASE_TYPES.GRASS
-                                    && randomGenerator.nextInt(100) > 92) {
-                        this.cases[linenumber][i] = CASE_TYPES.BUSH;
-                    }
-                }
+    /**
+     * Labels the road tiles connected to the entry point, in the order a breadth-first search starting at the entry
+     * point reaches them. The entry point is labeled 1.
+     *
+     * @return An array indexed by line * columnCount + column, holding 0 for tiles not connected to the entry point.
+     * @roseuid 5837CBE922AB
+     */
+    public int[] roadLabels() {
+        int lineCount = this.lineCount;
+        int columnCount = this.columnCount;
+        int[] labels = new int[lineCount * columnCount];
 
-                linenumber = linenumber + 1; 
+        if (this.entryPoint == null) {
+            return labels;
+        }
 
+        int[] queue = new int[lineCount * columnCount];
+        int head = 0;
+        int tail = 0;
+        int label = 1;
+        queue[tail++] = this.entryPoint.x * columnCount + this.entryPoint.y;
+        labels[queue[0]] = label++;
+
+        while (head < tail) {
+            int cell = queue[head++];
+            int line = cell / columnCount;
+            int column = cell % columnCount;
+
+            if (this.isWalkable(line, column + 1) && labels[cell + 1] == 0) {
+                labels[cell + 1] = label++;
+                queue[tail++] = cell + 1;
             }
+            if (this.isWalkable(line + 1, column) && labels[cell + columnCount] == 0) {
+                labels[cell + columnCount] = label++;
+                queue[tail++] = cell + columnCount;
+            }
+            if (this.isWalkable(line - 1, column) && labels[cell - columnCount] == 0) {
+                labels[cell - columnCount] = label++;
+                queue[tail++] = cell - columnCount;
+            }
+            if (this.isWalkable(line, column - 1) && labels[cell - 1] == 0) {
+                labels[cell - 1] = label++;
+                queue[tail++] = cell - 1;
+            }
+        }
 
-            br.close();
-        } catch (IOException exception) {
-            exception.printStackTrace();
+        return labels;
+    }
+
+    /**
+     * Returns the distance from every cell of the grid to the exit point, in number of moves on the walkable tiles. A
+     * ghost follows the shortest route by always stepping to its neighbor with the smallest distance, whatever the
+     * number of routes of the map. The field is
+     * calculated once from the exit point, and cached until the cases change.
+     *
+     * @return An array indexed by line * columnCount + column, holding -1 for cells that cannot reach the exit.
+     * @roseuid 5837CBE922AD
+     */
+    public int[] distanceField() {
+        int[] distances = this.distanceField;
+        if (distances == null) {
+            distances = this.calculateDistanceField();
+            this.distanceField = distances;
         }
+        return distances;
+    }
 
+    /**
+     * Returns the shortest path of the grid. The path is calculated once and cached until the cases change, so all the
+     * games played on the grid share it.
+     *
+     * @return The shortest path, already calculated.
+     * @roseuid 5837CBE922B0
+     */
+    public Path shortestPath() {
+        Path path = this.shortestPath;
+        if (path == null) {
+            path = new Path(this);
+            // Calculated before it is published, so that the other threads only read it.
+            path.getShortestPath();
+            this.shortestPath = path;
+        }
+        return path;
     }
 
     /**
-     * Returns an array representing the connections between entry and exit points.
+     * Returns the distance, in number of moves on the walkable tiles, from a cell to the exit point.
      *
-     * @returns Connectivity Array
-     * @roseuid 5837CBE922AC
+     * @param line Line of the cell.
+     * @param column Column of the cell.
+     *
+     * @return The distance to the exit, or -1 if the exit cannot be reached from the cell.
+     * @roseuid 5837CBE922AE
      */
-    public int[][][] connectivities() {
-        GridLocation entryPoint = this.entryPoint();
-        int[][][] connectivities = new int[this.cases.length][this.cases[0].length][3];
-        connectivities[entryPoint.x][entryPoint.y][0] = 1;
-        connectivities[entryPoint.x][entryPoint.y][1] = pathindex++;
-        this.connect(connectivities, entryPoint.x, entryPoint.y);
+    public int distanceToExit(int line, int column) {
+        return this.distanceField()[line * this.columnCount + column];
+    }
 
-        return connectivities;
+    /**
+     * Calculates the distance field with a breadth-first search over the walkable tiles, starting at the exit point.
+     * Every tile costs one move, so a cell is first reached at its smallest distance.
+     * @roseuid 5837CBE922AF
+     */
+    private int[] calculateDistanceField() {
+        int lineCount = this.lineCount;
+        int columnCount = this.columnCount;
+        int[] distances = new int[lineCount * columnCount];
+        Arrays.fill(distances, -1);
+
+        if (this.exitPoint == null) {
+            return distances;
+        }
+
+        int[] queue = new int[lineCount * columnCount];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = this.exitPoint.x * columnCount + this.exitPoint.y;
+        distances[queue[0]] = 0;
+
+        while (head < tail) {
+            int cell = queue[head++];
+            int line = cell / columnCount;
+            int column = cell % columnCount;
+            int distance = distances[cell] + 1;
+
+            if (this.isWalkable(line, column - 1) && distances[cell - 1] == -1) {
+                distances[cell - 1] = distance;
+                queue[tail++] = cell - 1;
+            }
+            if (this.isWalkable(line - 1, column) && distances[cell - columnCount] == -1) {
+                distances[cell - columnCount] = distance;
+                queue[tail++] = cell - columnCount;
+            }
+            if (this.isWalkable(line + 1, column) && distances[cell + columnCount] == -1) {
+                distances[cell + columnCount] = distance;
+                queue[tail++] = cell + columnCount;
+            }
+            if (this.isWalkable(line, column + 1) && distances[cell + 1] == -1) {
+                distances[cell + 1] = distance;
+                queue[tail++] = cell + 1;
+            }
+        }
+
+        return distances;
+    }
+
+    /**
+     * Determines if a ghost can walk on the specified location.
+     *
+     * @param line Line of the coordinate to validate.
+     * @param column Column of the coordinate to validate.
+     *
+     * @return True if the location is inside the grid and is not grass, false otherwise.
+     * @roseuid 5837CBE671AD
+     */
+    public boolean isWalkable(int line, int column) {
+        if (line < 0 || line > this.lineCount - 1) {
+            return false;
+        }
+        if (column < 0 || column > this.columnCount - 1) {
+            return false;
+        }
+        int cell = line * this.columnCount + column;
+        return (this.walkable[cell >>> 6] & (1L << cell)) != 0;
     }
 
     /**
@@ -160,12 +488,10 @@ public class GameGrid {
 
         ArrayList<GridLocation> response = new ArrayList<GridLocation>();
 
-        for (int i = 0; i < this.cases.length; i++) {
-            for (int j = 0; j < this.cases[0].length; j++) {
-                if (this.cases[i][j] == caseType) {
-                    response.add(new GridLocation(i, j));
-                }
-
+        byte type = (byte) caseType.ordinal();
+        for (int cell = 0; cell < this.cells.length; cell++) {
+            if (this.cells[cell] == type) {
+                response.add(new GridLocation(cell / this.columnCount, cell % this.columnCount));
             }
         }
 
@@ -176,31 +502,37 @@ public class GameGrid {
     /**
      * Returns the entry point of the grid. The entry point is assumed to be at the left edge of the map.
      *
-     * @returns the height of the entry point, or -1 if no valid entry point.
+     * @returns the location of the entry point, or null if no valid entry point.
      * @roseuid 5837CBE999HB
      */
     public GridLocation entryPoint() {
-        return this.getCasesByType(CASE_TYPES.START).get(0);
+        return this.entryPoint;
     }
 
     /**
-     * Returns the path grid.
+     * Returns the path grid. The list is built on the first call, then shared by all the callers and must not be
+     * modified.
      *
      * @returns an array list of GridLocation
      * @roseuid 5837CBE99IE3
      */
     public ArrayList<GridLocation> road() {
-        return this.getCasesByType(CASE_TYPES.ROAD);
+        ArrayList<GridLocation> roadTiles = this.road;
+        if (roadTiles == null) {
+            roadTiles = this.getCasesByType(CASE_TYPES.ROAD);
+            this.road = roadTiles;
+        }
+        return roadTiles;
     }
 
     /**
      * Returns the exit point of the grid. The exit point is assumed to be at the right edge of the map.
      *
-     * @returns the height of the exit point, or -1 if no valid exit point.
+     * @returns the location of the exit point, or null if no valid exit point.
      * @roseuid 5837CBE99I89
      */
     public GridLocation exitPoint() {
-        return this.getCasesByType(CASE_TYPES.END).get(0);
+        return this.exitPoint;
     }
 
     /**
@@ -218,16 +550,16 @@ public class GameGrid {
         if (line < 0) {
             return false;
         }
-        if (line > this.cases.length - 1) {
+        if (line > this.lineCount - 1) {
             return false;
         }
         if (column < 0) {
             return false;
         }
-        if (column > this.cases[0].length - 1) {
+        if (column > this.columnCount - 1) {
             return false;
         }
-        if (this.cases[line][column] == CASE_TYPES.GRASS || this.cases[line][column] == CASE_TYPES.BUSH) {
+        if (!this.isWalkable(line, column)) {
             return false;
         }
         if (connectivities[line][column][0] == 1) {
@@ -238,37 +570,51 @@ public class GameGrid {
 
     /**
      * Side method for isConnected method, it connects the neighbor of the tile(i,j) together if they are path tiles,
-     * from the entrance to the exit point
+     * from the entrance to the exit point. The road is flooded iteratively with a work queue of cell ids, so the depth
+     * of the road does not matter.
      * @roseuid 5837CBEIAC45E
      */
     public void connect(int[][][] connectivites, int line, int column) {
 
-        // check the right neighbor
-        if (this.isRoad(line, column + 1, connectivites)) {
-            connectivites[line][column + 1][0] = 1;
-            connectivites[line][column + 1][1] = pathindex++;
-            this.connect(connectivites, line, column + 1);
-        }
+        int columnCount = this.columnCount;
+        // The starting tile might be unmarked and get queued a second time by one of its neighbors.
+        int[] queue = new int[this.lineCount * columnCount + 1];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = line * columnCount + column;
+
+        while (head < tail) {
+            int cell = queue[head++];
+            line = cell / columnCount;
+            column = cell % columnCount;
+
+            // check the right neighbor
+            if (this.isRoad(line, column + 1, connectivites)) {
+                connectivites[line][column + 1][0] = 1;
+                connectivites[line][column + 1][1] = pathindex++;
+                queue[tail++] = cell + 1;
+            }
 
-        // check the below neighbor
-        if (this.isRoad(line + 1, column, connectivites)) {
-            connectivites[line + 1][column][0] = 1;
-            connectivites[line + 1][column][1] = pathindex++;
-            this.connect(connectivites, line + 1, column);
-        }
+            // check the below neighbor
+            if (this.isRoad(line + 1, column, connectivites)) {
+                connectivites[line + 1][column][0] = 1;
+                connectivites[line + 1][column][1] = pathindex++;
+                queue[tail++] = cell + columnCount;
+            }
 
-        // check the above neighbor
-        if (this.isRoad(line - 1, column, connectivites)) {
-            connectivites[line - 1][column][0] = 1;
-            connectivites[line - 1][column][1] = pathindex++;
-            this.connect(connectivites, line - 1, column);
-        }
+            // check the above neighbor
+            if (this.isRoad(line - 1, column, connectivites)) {
+                connectivites[line - 1][column][0] = 1;
+                connectivites[line - 1][column][1] = pathindex++;
+                queue[tail++] = cell - columnCount;
+            }
 
-        // check the left neighbor
-        if (this.isRoad(line, column - 1, connectivites)) {
-            connectivites[line][column - 1][0] = 1;
-            connectivites[line][column - 1][1] = pathindex++;
-            this.connect(connectivites, line, column - 1);
+            // check the left neighbor
+            if (this.isRoad(line, column - 1, connectivites)) {
+                connectivites[line][column - 1][0] = 1;
+                connectivites[line][column - 1][1] = pathindex++;
+                queue[tail++] = cell - 1;
+            }
         }
 
     }
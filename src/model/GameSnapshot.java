@@ -0,0 +1,355 @@
+package model;
+
+import java.util.Arrays;
+
+import model.tower.Tower;
+
+/**
+ * Immutable copy of the state of a game at the end of a turn or after a user action. The game publishes a new snapshot
+ * every time it delivers events to its listeners, so that the views and controllers can read a consistent state from
+ * the event dispatch thread while the game thread plays the next turn. Ghosts and towers are sorted by cell id (line *
+ * columnCount + column) so that they can be looked up by location.
+ *
+ * @author SnapDragon
+ *
+ */
+public final class GameSnapshot {
+
+    private final long sequence;
+    private final int columnCount;
+    private final int money;
+    private final int lives;
+    private final int wave;
+    private final int killedGhosts;
+    private final boolean over;
+    private final boolean won;
+    private final boolean makingTurn;
+
+    private final int[] ghostCells;
+    private final int[] ghostIds;
+    private final int[] ghostHealthPoints;
+    private final int[] ghostLevels;
+    private final int[] ghostMovementPoints;
+
+    private final int[] towerCells;
+    private final int[] towerLevels;
+
+    /**
+     * Copies of the towers, which the game thread does not change when it upgrades the towers.
+     */
+    private final Tower[] towers;
+
+    private final int[] dirtyCells;
+
+    /**
+     * Constructs a snapshot of the specified game. Should only be called by the game itself, while no turn is being
+     * played.
+     *
+     * @param game Game to copy.
+     * @param sequence Serial number of the snapshot.
+     * @param dirtyCells Cells that changed since the previous snapshot.
+     * @param previous Previous snapshot of the game, whose copies of the unchanged towers are reused, or null.
+     * @roseuid 5837CF5000A0
+     */
+    GameSnapshot(Game game, long sequence, int[] dirtyCells, GameSnapshot previous) {
+        this.sequence = sequence;
+        this.columnCount = game.ghosts.getColumnCount();
+        this.money = game.getMoney();
+        this.lives = game.getLives();
+        this.wave = game.getWave();
+        this.killedGhosts = game.getKilledGhosts();
+        this.over = game.isOver();
+        this.won = game.isWon();
+        this.makingTurn = game.isMakingTurn();
+        this.dirtyCells = dirtyCells;
+
+        GhostStore ghosts = game.ghosts;
+        long[] ghostOrder = new long[ghosts.size()];
+        for (int slot = 0; slot < ghosts.size(); slot++) {
+            ghostOrder[slot] = ((long) ghosts.getCell(slot) << 32) | slot;
+        }
+        Arrays.sort(ghostOrder);
+        this.ghostCells = new int[ghostOrder.length];
+        this.ghostIds = new int[ghostOrder.length];
+        this.ghostHealthPoints = new int[ghostOrder.length];
+        this.ghostLevels = new int[ghostOrder.length];
+        this.ghostMovementPoints = new int[ghostOrder.length];
+        for (int i = 0; i < ghostOrder.length; i++) {
+            int slot = (int) ghostOrder[i];
+            this.ghostCells[i] = ghosts.getCell(slot);
+            this.ghostIds[i] = ghosts.getId(slot);
+            this.ghostHealthPoints[i] = ghosts.getHealthPoints(slot);
+            this.ghostLevels[i] = ghosts.getLevel(slot);
+            this.ghostMovementPoints[i] = ghosts.getMovementPoints(slot);
+        }
+
+        Tower[] placedTowers = game.getTowers().toArray(new Tower[0]);
+        long[] towerOrder = new long[placedTowers.length];
+        for (int i = 0; i < placedTowers.length; i++) {
+            GridLocation location = placedTowers[i].getLocation();
+            towerOrder[i] = ((long) (location.x * this.columnCount + location.y) << 32) | i;
+        }
+        Arrays.sort(towerOrder);
+        this.towerCells = new int[towerOrder.length];
+        this.towerLevels = new int[towerOrder.length];
+        this.towers = new Tower[towerOrder.length];
+        for (int i = 0; i < towerOrder.length; i++) {
+            Tower tower = placedTowers[(int) towerOrder[i]];
+            this.towerCells[i] = (int) (towerOrder[i] >> 32);
+            this.towerLevels[i] = tower.getLevel();
+            Tower copy = previous == null ? null : previous.getTower(this.towerCells[i]);
+            if (copy == null || copy.getTowerID() != tower.getTowerID() || copy.getLevel() != tower.getLevel()) {
+                copy = tower.copy();
+            }
+            this.towers[i] = copy;
+        }
+    }
+
+    /**
+     * Gets the serial number of the snapshot. Every snapshot published by a game has a greater number than the
+     * previous one.
+     *
+     * @return The serial number of the snapshot.
+     * @roseuid 5837CF5000A1
+     */
+    public long getSequence() {
+        return this.sequence;
+    }
+
+    /**
+     * Gets the number of columns of the grid, used to compute the cell ids.
+     *
+     * @return The number of columns of the grid.
+     * @roseuid 5837CF5000A2
+     */
+    public int getColumnCount() {
+        return this.columnCount;
+    }
+
+    /**
+     * Gets the amount of money the player had.
+     *
+     * @return The amount of money of the player.
+     * @roseuid 5837CF5000A3
+     */
+    public int getMoney() {
+        return this.money;
+    }
+
+    /**
+     * Gets the remaining lives of the player.
+     *
+     * @return The life count of the player.
+     * @roseuid 5837CF5000A4
+     */
+    public int getLives() {
+        return this.lives;
+    }
+
+    /**
+     * Gets the current wave.
+     *
+     * @return The serial number of the wave.
+     * @roseuid 5837CF5000A5
+     */
+    public int getWave() {
+        return this.wave;
+    }
+
+    /**
+     * Gets the number of killed ghosts.
+     *
+     * @return The number of killed ghosts in the game.
+     * @roseuid 5837CF5000A6
+     */
+    public int getKilledGhosts() {
+        return this.killedGhosts;
+    }
+
+    /**
+     * Determines if the game was over.
+     *
+     * @return true is the game was over, false otherwise.
+     * @roseuid 5837CF5000A7
+     */
+    public boolean isOver() {
+        return this.over;
+    }
+
+    /**
+     * Determines if the player had won the game.
+     *
+     * @return True if the game was won, false otherwise.
+     * @roseuid 5837CF5000A8
+     */
+    public boolean isWon() {
+        return this.won;
+    }
+
+    /**
+     * Determines if a wave was being played.
+     *
+     * @return True if the game was in a turn, false otherwise.
+     * @roseuid 5837CF5000A9
+     */
+    public boolean isMakingTurn() {
+        return this.makingTurn;
+    }
+
+    /**
+     * Gets the number of ghosts on the grid.
+     *
+     * @return The number of ghosts.
+     * @roseuid 5837CF5000AA
+     */
+    public int getGhostCount() {
+        return this.ghostCells.length;
+    }
+
+    /**
+     * Determines if there is a ghost on a cell.
+     *
+     * @param cell Id of the cell.
+     * @return True if there is a ghost on the cell.
+     * @roseuid 5837CF5000AB
+     */
+    public boolean hasGhost(int cell) {
+        return Arrays.binarySearch(this.ghostCells, cell) >= 0;
+    }
+
+    /**
+     * Gets the ghost on a cell.
+     *
+     * @param cell Id of the cell.
+     * @return A copy of the ghost, or null if there is no ghost on the cell.
+     * @roseuid 5837CF5000AC
+     */
+    public Ghost getGhost(int cell) {
+        int index = Arrays.binarySearch(this.ghostCells, cell);
+        if (index < 0) {
+            return null;
+        }
+        return this.ghostAt(index);
+    }
+
+    /**
+     * Gets the ghost with the specified id.
+     *
+     * @param ghostID Id of the ghost.
+     * @return A copy of the ghost, or null if the ghost was not on the grid.
+     * @roseuid 5837CF5000AD
+     */
+    public Ghost getGhostById(int ghostID) {
+        for (int i = 0; i < this.ghostIds.length; i++) {
+            if (this.ghostIds[i] == ghostID) {
+                return this.ghostAt(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Builds the Ghost object at the specified index of the ghost arrays.
+     *
+     * @param index Index of the ghost.
+     * @return A copy of the ghost.
+     * @roseuid 5837CF5000AE
+     */
+    private Ghost ghostAt(int index) {
+        int cell = this.ghostCells[index];
+        GridLocation location = new GridLocation(cell / this.columnCount, cell % this.columnCount);
+        return new Ghost(this.ghostIds[index], location, this.ghostLevels[index], this.ghostHealthPoints[index],
+                        this.ghostMovementPoints[index]);
+    }
+
+    /**
+     * Gets the cell of a ghost.
+     *
+     * @param index Index of the ghost, between 0 and getGhostCount() - 1. Ghosts are sorted by cell.
+     * @return The id of the cell of the ghost.
+     * @roseuid 5837CF5000AF
+     */
+    public int getGhostCell(int index) {
+        return this.ghostCells[index];
+    }
+
+    /**
+     * Gets the health points of a ghost.
+     *
+     * @param index Index of the ghost, between 0 and getGhostCount() - 1.
+     * @return The health points of the ghost.
+     * @roseuid 5837CF5000B0
+     */
+    public int getGhostHealthPoints(int index) {
+        return this.ghostHealthPoints[index];
+    }
+
+    /**
+     * Gets the number of towers on the grid.
+     *
+     * @return The number of towers.
+     * @roseuid 5837CF5000B1
+     */
+    public int getTowerCount() {
+        return this.towerCells.length;
+    }
+
+    /**
+     * Gets the tower on a cell, as it was when the snapshot was taken.
+     *
+     * @param cell Id of the cell.
+     * @return A copy of the tower, or null if there is no tower on the cell.
+     * @roseuid 5837CF5000B2
+     */
+    public Tower getTower(int cell) {
+        int index = Arrays.binarySearch(this.towerCells, cell);
+        if (index < 0) {
+            return null;
+        }
+        return this.towers[index];
+    }
+
+    /**
+     * Gets the cell of a tower.
+     *
+     * @param index Index of the tower, between 0 and getTowerCount() - 1. Towers are sorted by cell.
+     * @return The id of the cell of the tower.
+     * @roseuid 5837CF5000B3
+     */
+    public int getTowerCell(int index) {
+        return this.towerCells[index];
+    }
+
+    /**
+     * Gets the level a tower had when the snapshot was taken.
+     *
+     * @param index Index of the tower, between 0 and getTowerCount() - 1.
+     * @return The level of the tower.
+     * @roseuid 5837CF5000B4
+     */
+    public int getTowerLevel(int index) {
+        return this.towerLevels[index];
+    }
+
+    /**
+     * Gets the number of cells that changed since the previous snapshot.
+     *
+     * @return The number of changed cells.
+     * @roseuid 5837CF5000B7
+     */
+    public int getDirtyCount() {
+        return this.dirtyCells.length;
+    }
+
+    /**
+     * Gets a cell that changed since the previous snapshot.
+     *
+     * @param index Index of the changed cell, between 0 and getDirtyCount() - 1.
+     * @return The id of the cell.
+     * @roseuid 5837CF5000B8
+     */
+    public int getDirtyCell(int index) {
+        return this.dirtyCells[index];
+    }
+
+}
@@ -1,7 +1,13 @@
 package model;
 
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
 /**
- * The main game thread. This thread will call the makeTurn action of the Game class until it is interrupted.
+ * The main game thread. This thread runs the actions submitted to the game and, while a wave is in progress, calls the
+ * makeTurn action of the Game class at a fixed rate. It waits for the next action between the waves, and stops when
+ * the game is over. If a turn takes longer than the tick period, the following turns are played back to back to catch
+ * up, up to MAX_CATCH_UP_TICKS turns, after which the late ticks are dropped.
  *
  * @author SnapDragon
  *
@@ -13,42 +19,115 @@ public class GameThread extends Thread {
      */
     public static int DEFAULT_DELAY = 1000;
 
+    /**
+     * Maximum number of late ticks played back to back before the schedule is reset.
+     */
+    public static int MAX_CATCH_UP_TICKS = 5;
+
     private Game game;
 
+    /**
+     * Period of the ticks. Written by the thread changing the tick rate and read by the game thread.
+     */
+    private volatile long tickNanos;
+
     /**
      * We don't use the interrupted mechanism of the Thread class because of it's side effects. We want the current
      * thread to finish it's current executing instead of brutally interrupting it.
      */
-    private boolean isStopped = false;
+    private volatile boolean isStopped = false;
+    private volatile boolean isPaused = false;
 
     /**
-     * Creates a new GameThread associated with a game.
+     * Creates a new GameThread associated with a game, ticking every DEFAULT_DELAY milliseconds.
      *
      * @param game Game to associate with the GameThread.
      *  @roseuid 5837CC25005B
      */
     public GameThread(Game game) {
+        this(game, 1000.0 / GameThread.DEFAULT_DELAY);
+    }
+
+    /**
+     * Creates a new GameThread associated with a game.
+     *
+     * @param game Game to associate with the GameThread.
+     * @param ticksPerSecond Number of game turns to play per second.
+     *  @roseuid 5837CC25005C
+     */
+    public GameThread(Game game, double ticksPerSecond) {
+        super("GameThread");
         this.game = game;
+        this.setTicksPerSecond(ticksPerSecond);
+        this.setDaemon(true);
     }
 
     /**
-     * Will call the makeTurn function on the associated Game object.
+     * Changes the rate at which the game turns are played. Takes effect at the next tick.
+     *
+     * @param ticksPerSecond Number of game turns to play per second.
+     *  @roseuid 5837CC25005D
+     */
+    public void setTicksPerSecond(double ticksPerSecond) {
+        if (ticksPerSecond <= 0) {
+            throw new IllegalArgumentException("Invalid tick rate " + ticksPerSecond);
+        }
+        this.tickNanos = (long) (TimeUnit.SECONDS.toNanos(1) / ticksPerSecond);
+    }
+
+    /**
+     * Will run the actions submitted to the associated Game object, and call its makeTurn function once per tick
+     * during the waves. A turn that fails is reported and the next turn is still played.
      *  @roseuid 5837CC25887I
      */
     @Override
-    public synchronized void run() {
-
-        if (this.isStopped) {
-            return;
+    public void run() {
+        try {
+            this.playTurns();
+        } finally {
+            this.game.gameThreadStopped(this);
         }
+    }
 
-        try {
-            this.wait(GameThread.DEFAULT_DELAY);
-        } catch (InterruptedException e) {
-            e.printStackTrace();
+    /**
+     * Plays the turns and runs the actions of the game until the thread is stopped or the game is over.
+     *  @roseuid 5837CC250668
+     */
+    private void playTurns() {
+
+        long nextTick = System.nanoTime() + this.tickNanos;
+
+        while (!this.isStopped) {
+
+            this.game.runCommands();
+            if (this.game.isOver() || this.game.isWon()) {
+                break;
+            }
+
+            if (this.isPaused || !this.game.isMakingTurn()) {
+                LockSupport.park(this);
+                nextTick = System.nanoTime() + this.tickNanos;
+                continue;
+            }
+
+            long now = System.nanoTime();
+            if (now < nextTick) {
+                LockSupport.parkNanos(this, nextTick - now);
+                continue;
+            }
+
+            try {
+                this.game.makeTurn();
+            } catch (RuntimeException exception) {
+                exception.printStackTrace();
+            }
+            nextTick += this.tickNanos;
+
+            // We are too late to catch up, so we drop the missed ticks.
+            if (System.nanoTime() - nextTick > GameThread.MAX_CATCH_UP_TICKS * this.tickNanos) {
+                nextTick = System.nanoTime() + this.tickNanos;
+            }
         }
-        this.game.makeTurn();
-        this.run();
     }
 
     /**
@@ -57,6 +136,42 @@ public class GameThread extends Thread {
      */
     public void stopThread() {
         this.isStopped = true;
+        LockSupport.unpark(this);
+    }
+
+    /**
+     * Wakes the thread up, so that it runs the actions submitted to the game without waiting for the next tick.
+     *  @roseuid 5837CC250667
+     */
+    public void wakeUp() {
+        LockSupport.unpark(this);
+    }
+
+    /**
+     * Pauses the thread after the current turn, until resumeThread is called.
+     *  @roseuid 5837CC250664
+     */
+    public void pauseThread() {
+        this.isPaused = true;
+    }
+
+    /**
+     * Resumes a paused thread. The next turn is played one tick after resuming.
+     *  @roseuid 5837CC250665
+     */
+    public void resumeThread() {
+        this.isPaused = false;
+        LockSupport.unpark(this);
+    }
+
+    /**
+     * Determines if the thread is paused.
+     *
+     * @return True if the thread is paused, false otherwise.
+     *  @roseuid 5837CC250666
+     */
+    public boolean isPaused() {
+        return this.isPaused;
     }
 
 }
@@ -68,6 +68,24 @@ public class Ghost {
         this.ghostID = ++idCount;
     }
 
+    /**
+     * Constructor method for a ghost with a known state, such as a ghost read from a GhostStore.
+     *
+     * @param ghostID Id of the ghost.
+     * @param gridLocation Location of the ghost on the grid.
+     * @param level Level of the ghost.
+     * @param healthPoints Remaining health points of the ghost.
+     * @param movementPoints Movement points of the ghost.
+     *  @roseuid 5837CC2500AE
+     */
+    public Ghost(int ghostID, GridLocation gridLocation, int level, int healthPoints, int movementPoints) {
+        this.gridLocation = gridLocation;
+        this.healthPoints = healthPoints;
+        this.level = level;
+        this.movementPoints = movementPoints;
+        this.ghostID = ghostID;
+    }
+
     /**
      * Constructor method for a ghost, using an existing ghost instance.
      *
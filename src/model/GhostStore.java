@@ -0,0 +1,363 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Store holding the ghosts on the game grid. The ghosts are kept in parallel arrays of primitives, one entry per slot,
+ * and an occupancy array gives the slot of the ghost standing on each cell of the grid. Cell ids are computed as
+ * line * columnCount + column. Removing a ghost moves the last ghost into its slot, so slots are only stable until the
+ * next removal; ghost ids are stable for the life of the ghost.
+ *
+ * @author SnapDragon
+ *
+ */
+public class GhostStore {
+
+    /**
+     * Number of slots allocated when the store is created.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int lineCount;
+    private int columnCount;
+    private int size = 0;
+    private int idCount = 0;
+    private long allocationCount = 0;
+
+    private int[] ids;
+    private int[] cells;
+    private int[] healthPoints;
+    private int[] levels;
+    private int[] movementPoints;
+
+    /**
+     * Slot of the ghost standing on each cell, or -1 if the cell is free.
+     */
+    private int[] occupancy;
+
+    /**
+     * Constructs an empty store for a grid of the specified dimensions.
+     *
+     * @param lineCount Number of lines of the grid.
+     * @param columnCount Number of columns of the grid.
+     * @roseuid 5837CC2600A0
+     */
+    public GhostStore(int lineCount, int columnCount) {
+        this.lineCount = lineCount;
+        this.columnCount = columnCount;
+        this.ids = new int[INITIAL_CAPACITY];
+        this.cells = new int[INITIAL_CAPACITY];
+        this.healthPoints = new int[INITIAL_CAPACITY];
+        this.levels = new int[INITIAL_CAPACITY];
+        this.movementPoints = new int[INITIAL_CAPACITY];
+        this.occupancy = new int[lineCount * columnCount];
+        Arrays.fill(this.occupancy, -1);
+    }
+
+    /**
+     * Gets the number of ghosts in the store.
+     *
+     * @return The number of ghosts on the grid.
+     * @roseuid 5837CC2600A1
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Gets the number of columns of the grid, used to compute the cell ids.
+     *
+     * @return The number of columns of the grid.
+     * @roseuid 5837CC2600A2
+     */
+    public int getColumnCount() {
+        return this.columnCount;
+    }
+
+    /**
+     * Gets the number of times the arrays of the store had to be allocated again to make room for more ghosts. Once
+     * the store has reached the size of a wave, this count stays the same from one turn to the next.
+     *
+     * @return The number of allocations made by the store since it was created.
+     * @roseuid 5837CC2600B8
+     */
+    public long getAllocationCount() {
+        return this.allocationCount;
+    }
+
+    /**
+     * Adds a new ghost on a free cell of the grid.
+     *
+     * @param cell Id of the cell where the ghost is placed.
+     * @param level Level of the ghost to create.
+     * @return The slot of the new ghost.
+     * @roseuid 5837CC2600A3
+     */
+    public int spawn(int cell, int level) {
+        return this.add(++this.idCount, cell, Ghost.HEALTH_POINTS_PER_LEVEL * level, level, 0);
+    }
+
+    /**
+     * Adds a ghost with the specified state on a free cell of the grid.
+     *
+     * @param ghostID Id of the ghost.
+     * @param cell Id of the cell where the ghost is placed.
+     * @param health Health points of the ghost.
+     * @param level Level of the ghost.
+     * @param movement Movement points of the ghost.
+     * @return The slot of the ghost.
+     * @roseuid 5837CC2600A4
+     */
+    public int add(int ghostID, int cell, int health, int level, int movement) {
+        if (this.occupancy[cell] != -1) {
+            throw new IllegalArgumentException("Cell " + cell + " is already occupied by a ghost");
+        }
+        if (this.size == this.ids.length) {
+            this.grow();
+        }
+        int slot = this.size++;
+        this.ids[slot] = ghostID;
+        this.cells[slot] = cell;
+        this.healthPoints[slot] = health;
+        this.levels[slot] = level;
+        this.movementPoints[slot] = movement;
+        this.occupancy[cell] = slot;
+        this.idCount = Math.max(this.idCount, ghostID);
+        return slot;
+    }
+
+    /**
+     * Doubles the capacity of the store.
+     * @roseuid 5837CC2600A5
+     */
+    private void grow() {
+        this.allocationCount++;
+        int capacity = this.ids.length * 2;
+        this.ids = Arrays.copyOf(this.ids, capacity);
+        this.cells = Arrays.copyOf(this.cells, capacity);
+        this.healthPoints = Arrays.copyOf(this.healthPoints, capacity);
+        this.levels = Arrays.copyOf(this.levels, capacity);
+        this.movementPoints = Arrays.copyOf(this.movementPoints, capacity);
+    }
+
+    /**
+     * Removes the ghost in the specified slot. The last ghost of the store takes its slot.
+     *
+     * @param slot Slot of the ghost to remove.
+     * @roseuid 5837CC2600A6
+     */
+    public void remove(int slot) {
+        this.occupancy[this.cells[slot]] = -1;
+        int last = --this.size;
+        if (slot != last) {
+            this.ids[slot] = this.ids[last];
+            this.cells[slot] = this.cells[last];
+            this.healthPoints[slot] = this.healthPoints[last];
+            this.levels[slot] = this.levels[last];
+            this.movementPoints[slot] = this.movementPoints[last];
+            this.occupancy[this.cells[slot]] = slot;
+        }
+    }
+
+    /**
+     * Removes all the ghosts from the store.
+     * @roseuid 5837CC2600A7
+     */
+    public void clear() {
+        for (int slot = 0; slot < this.size; slot++) {
+            this.occupancy[this.cells[slot]] = -1;
+        }
+        this.size = 0;
+    }
+
+    /**
+     * Gets the slot of the ghost standing on a cell.
+     *
+     * @param cell Id of the cell.
+     * @return The slot of the ghost, or -1 if the cell is free.
+     * @roseuid 5837CC2600A8
+     */
+    public int slotAt(int cell) {
+        return this.occupancy[cell];
+    }
+
+    /**
+     * Gets the slot of the ghost standing at a location. Locations outside of the grid are always free.
+     *
+     * @param line Line of the location.
+     * @param column Column of the location.
+     * @return The slot of the ghost, or -1 if the location is free.
+     * @roseuid 5837CC2600A9
+     */
+    public int slotAt(int line, int column) {
+        if (line < 0 || line >= this.lineCount || column < 0 || column >= this.columnCount) {
+            return -1;
+        }
+        return this.occupancy[line * this.columnCount + column];
+    }
+
+    /**
+     * Gets the slot of the ghost with the specified id.
+     *
+     * @param ghostID Id of the ghost.
+     * @return The slot of the ghost, or -1 if it is not in the store.
+     * @roseuid 5837CC2600AA
+     */
+    public int slotOf(int ghostID) {
+        for (int slot = 0; slot < this.size; slot++) {
+            if (this.ids[slot] == ghostID) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Moves a ghost to a free cell.
+     *
+     * @param slot Slot of the ghost.
+     * @param cell Id of the destination cell.
+     * @roseuid 5837CC2600AB
+     */
+    public void moveTo(int slot, int cell) {
+        this.occupancy[this.cells[slot]] = -1;
+        this.cells[slot] = cell;
+        this.occupancy[cell] = slot;
+    }
+
+    /**
+     * Make turn for a ghost: it gains movement points according to its speed.
+     *
+     * @param slot Slot of the ghost.
+     * @roseuid 5837CC2600AC
+     */
+    public void makeTurn(int slot) {
+        this.movementPoints[slot] += Ghost.INITIAL_SPEED + (this.levels[slot] * Ghost.SPEED_PER_LEVEL);
+        this.healthPoints[slot] = Math.max(this.healthPoints[slot], 0);
+    }
+
+    /**
+     * Checks if the movement threshold of a ghost is reached.
+     *
+     * @param slot Slot of the ghost.
+     * @return true if ghost can still be moved otherwise false
+     * @roseuid 5837CC2600AD
+     */
+    public boolean shouldMove(int slot) {
+        return this.movementPoints[slot] >= Ghost.MOVEMENT_THRESHOLD;
+    }
+
+    /**
+     * Decreases the movement points of a ghost by movement threshold.
+     *
+     * @param slot Slot of the ghost.
+     * @roseuid 5837CC2600AE
+     */
+    public void move(int slot) {
+        this.movementPoints[slot] -= Ghost.MOVEMENT_THRESHOLD;
+    }
+
+    /**
+     * Attacks a ghost with the specified damage.
+     *
+     * @param slot Slot of the ghost.
+     * @param damage Damage to deal to the ghost.
+     * @roseuid 5837CC2600AF
+     */
+    public void takeDamage(int slot, int damage) {
+        this.healthPoints[slot] -= damage;
+    }
+
+    /**
+     * Indicates whether a ghost is dead or not.
+     *
+     * @param slot Slot of the ghost.
+     * @return true if the ghost has no remaining health point, false otherwise.
+     * @roseuid 5837CC2600B0
+     */
+    public boolean isDead(int slot) {
+        return this.healthPoints[slot] <= 0;
+    }
+
+    /**
+     * Get the reward associated with killing a ghost.
+     *
+     * @param slot Slot of the ghost.
+     * @return An integer representing the reward as money.
+     * @roseuid 5837CC2600B1
+     */
+    public int getReward(int slot) {
+        return Ghost.INITIAL_HEALTH_POINTS + (Ghost.HEALTH_POINTS_PER_LEVEL * this.levels[slot]);
+    }
+
+    /**
+     * Gets the id of a ghost.
+     *
+     * @param slot Slot of the ghost.
+     * @return The id of the ghost.
+     * @roseuid 5837CC2600B2
+     */
+    public int getId(int slot) {
+        return this.ids[slot];
+    }
+
+    /**
+     * Gets the cell a ghost stands on.
+     *
+     * @param slot Slot of the ghost.
+     * @return The id of the cell.
+     * @roseuid 5837CC2600B3
+     */
+    public int getCell(int slot) {
+        return this.cells[slot];
+    }
+
+    /**
+     * Gets the health points of a ghost.
+     *
+     * @param slot Slot of the ghost.
+     * @return The health points of the ghost.
+     * @roseuid 5837CC2600B4
+     */
+    public int getHealthPoints(int slot) {
+        return this.healthPoints[slot];
+    }
+
+    /**
+     * Gets the level of a ghost.
+     *
+     * @param slot Slot of the ghost.
+     * @return The level of the ghost.
+     * @roseuid 5837CC2600B5
+     */
+    public int getLevel(int slot) {
+        return this.levels[slot];
+    }
+
+    /**
+     * Gets the movement points of a ghost.
+     *
+     * @param slot Slot of the ghost.
+     * @return The movement points of the ghost.
+     * @roseuid 5837CC2600B6
+     */
+    public int getMovementPoints(int slot) {
+        return this.movementPoints[slot];
+    }
+
+    /**
+     * Builds a Ghost object holding a copy of the state of a ghost. Changes made to the returned object are not
+     * reflected in the store.
+     *
+     * @param slot Slot of the ghost.
+     * @return A copy of the ghost.
+     * @roseuid 5837CC2600B7
+     */
+    public Ghost getGhost(int slot) {
+        int cell = this.cells[slot];
+        GridLocation location = new GridLocation(cell / this.columnCount, cell % this.columnCount);
+        return new Ghost(this.ids[slot], location, this.levels[slot], this.healthPoints[slot],
+                        this.movementPoints[slot]);
+    }
+
+}
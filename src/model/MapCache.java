@@ -0,0 +1,105 @@
+package model;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache of the loaded maps, keyed by the canonical path of their file. A cached map is used as long as its file keeps
+ * the same modification time and size, and is loaded again otherwise. The least recently used maps are evicted when
+ * there are more maps than the capacity of the cache. The cache is thread-safe: the maps are loaded outside of its
+ * lock, so a slow map does not block the others, and two threads asking at once for a map that is not cached may both
+ * load it.
+ *
+ * @author SnapDragon
+ *
+ */
+public class MapCache {
+
+    /**
+     * Number of maps kept by the shared cache.
+     */
+    public static int SHARED_CAPACITY = 8;
+
+    private static MapCache shared = new MapCache(MapCache.SHARED_CAPACITY);
+
+    private LinkedHashMap<String, MapData> maps;
+
+    /**
+     * Gets the cache shared by the whole program, used by GameGrid.readFromFile.
+     *
+     * @return The shared cache.
+     * @roseuid 5837D50A0010
+     */
+    public static MapCache getShared() {
+        return MapCache.shared;
+    }
+
+    /**
+     * Constructs an empty cache.
+     *
+     * @param capacity Maximum number of maps kept by the cache.
+     * @roseuid 5837D50A0011
+     */
+    public MapCache(final int capacity) {
+        this.maps = new LinkedHashMap<String, MapData>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, MapData> eldest) {
+                return this.size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Gets a map, loading it if it is not cached or if its file changed since it was loaded.
+     *
+     * @param filename Name of the map file.
+     * @return The map.
+     * @throws MapFormatException If the file has the wrong format, with the position of the problem in the file.
+     * @throws IOException If the file could not be read.
+     * @roseuid 5837D50A0012
+     */
+    public MapData get(String filename) throws IOException {
+        File file = new File(filename);
+        String key = file.getCanonicalPath();
+        // Read before loading, so that a change made while the map is loaded is seen by the next call.
+        long lastModified = file.lastModified();
+        long length = file.length();
+
+        synchronized (this) {
+            MapData map = this.maps.get(key);
+            if (map != null && map.isCurrent(lastModified, length)) {
+                return map;
+            }
+        }
+
+        MapData map = MapData.load(filename, lastModified, length);
+        synchronized (this) {
+            this.maps.put(key, map);
+        }
+        return map;
+    }
+
+    /**
+     * Removes all the maps from the cache.
+     * @roseuid 5837D50A0013
+     */
+    public synchronized void clear() {
+        this.maps.clear();
+    }
+
+    /**
+     * Gets the number of maps in the cache.
+     *
+     * @return The number of cached maps.
+     * @roseuid 5837D50A0014
+     */
+    public synchronized int size() {
+        return this.maps.size();
+    }
+
+}
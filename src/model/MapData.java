@@ -0,0 +1,162 @@
+package model;
+
+import java.io.IOException;
+
+import model.GameGrid.CASE_TYPES;
+
+/**
+ * Immutable map loaded from a file, with the data derived from its tiles: the entry and exit points, the bit set of
+ * the walkable cells, the distance field and the shortest path. A map is shared by all the grids loaded from its
+ * file, which only add their own bushes, so the derived data is calculated once per map and not once per game. None
+ * of the arrays and lists of a map may be modified.
+ *
+ * @author SnapDragon
+ *
+ */
+public final class MapData {
+
+    private static final CASE_TYPES[] TYPES = CASE_TYPES.values();
+
+    private final String filename;
+    private final long lastModified;
+    private final long length;
+
+    final byte[] cells;
+    final int lineCount;
+    final int columnCount;
+    final long[] walkable;
+    final GridLocation entryPoint;
+    final GridLocation exitPoint;
+    final int[] distanceField;
+    final Path path;
+
+    /**
+     * Constructs a map from a grid holding its tiles. The derived data of the grid is calculated, then shared by the
+     * map. The grid must not be used afterwards.
+     *
+     * @param filename Name of the map file.
+     * @param lastModified Time at which the file was last modified, as given by File.lastModified.
+     * @param length Size of the file, in bytes.
+     * @param grid Grid holding the tiles of the map.
+     * @roseuid 5837D50A0001
+     */
+    private MapData(String filename, long lastModified, long length, GameGrid grid) {
+        this.filename = filename;
+        this.lastModified = lastModified;
+        this.length = length;
+        this.cells = grid.cells;
+        this.lineCount = grid.getRows();
+        this.columnCount = grid.getColumns();
+        this.walkable = grid.walkable;
+        this.entryPoint = grid.entryPoint();
+        this.exitPoint = grid.exitPoint();
+        this.distanceField = grid.distanceField();
+        this.path = grid.shortestPath();
+    }
+
+    /**
+     * Loads a map file, without going through the map cache. The file can be a text map or a binary map written by
+     * BinaryMap, whose distance field is loaded instead of being calculated.
+     *
+     * @param filename Name of the map file.
+     * @param lastModified Time at which the file was last modified, as given by File.lastModified.
+     * @param length Size of the file, in bytes.
+     * @return The loaded map.
+     * @throws MapFormatException If the file has the wrong format, with the position of the problem in the file.
+     * @throws IOException If the file could not be read.
+     * @roseuid 5837D50A0002
+     */
+    public static MapData load(String filename, long lastModified, long length) throws IOException {
+        GameGrid grid;
+        if (BinaryMap.isBinaryMap(filename)) {
+            BinaryMap binaryMap = BinaryMap.read(filename);
+            grid = new GameGrid();
+            grid.setCells(binaryMap.lineCount, binaryMap.columnCount, binaryMap.cells);
+            if (binaryMap.entryCell != MapData.cellOf(grid.entryPoint(), binaryMap.columnCount)
+                            || binaryMap.exitCell != MapData.cellOf(grid.exitPoint(), binaryMap.columnCount)) {
+                throw new MapFormatException(filename, 1, 1, "the entry and exit points do not match the tiles");
+            }
+            grid.setDistanceField(binaryMap.distanceField);
+        } else {
+            grid = MapParser.parse(filename);
+        }
+        return new MapData(filename, lastModified, length, grid);
+    }
+
+    /**
+     * Gets the cell of a location.
+     *
+     * @param location Location, or null.
+     * @param columnCount Number of columns of the map.
+     * @return The id of the cell (line * columnCount + column), or -1 if the location is null.
+     * @roseuid 5837D50A0003
+     */
+    private static int cellOf(GridLocation location, int columnCount) {
+        return location == null ? -1 : location.x * columnCount + location.y;
+    }
+
+    /**
+     * Gets the name of the file the map was loaded from.
+     *
+     * @return The name of the file.
+     * @roseuid 5837D50A0004
+     */
+    public String getFilename() {
+        return this.filename;
+    }
+
+    /**
+     * Determines if the map was loaded from the current version of its file.
+     *
+     * @param lastModified Time at which the file was last modified, as given by File.lastModified.
+     * @param length Size of the file, in bytes.
+     * @return True if the file has the same modification time and size as when the map was loaded.
+     * @roseuid 5837D50A0005
+     */
+    public boolean isCurrent(long lastModified, long length) {
+        return this.lastModified == lastModified && this.length == length;
+    }
+
+    /**
+     * Gets the number of lines of the map.
+     *
+     * @return The number of lines.
+     * @roseuid 5837D50A0006
+     */
+    public int getLineCount() {
+        return this.lineCount;
+    }
+
+    /**
+     * Gets the number of columns of the map.
+     *
+     * @return The number of columns.
+     * @roseuid 5837D50A0007
+     */
+    public int getColumnCount() {
+        return this.columnCount;
+    }
+
+    /**
+     * Gets the type of a tile of the map.
+     *
+     * @param line Line of the tile.
+     * @param column Column of the tile.
+     * @return The type of the tile.
+     * @roseuid 5837D50A0008
+     */
+    public CASE_TYPES getCase(int line, int column) {
+        return MapData.TYPES[this.cells[line * this.columnCount + column]];
+    }
+
+    /**
+     * Gets the shortest path of the map, shared by all the games played on it.
+     *
+     * @return The shortest path, already calculated.
+     * @roseuid 5837D50A0009
+     */
+    public Path getPath() {
+        return this.path;
+    }
+
+}
@@ -0,0 +1,66 @@
+package model;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a map file does not have the expected format. Gives the position in the file where the problem was
+ * found, so that the map can be fixed.
+ *
+ * @author SnapDragon
+ *
+ */
+public class MapFormatException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private String filename;
+    private int line;
+    private int column;
+
+    /**
+     * Constructs the exception for a problem at the specified position of a map file.
+     *
+     * @param filename Name of the map file.
+     * @param line Line of the file where the problem was found, starting at 1.
+     * @param column Column of the file where the problem was found, starting at 1.
+     * @param message Description of the problem.
+     * @roseuid 5837D31A0001
+     */
+    public MapFormatException(String filename, int line, int column, String message) {
+        super(filename + ":" + line + ":" + column + ": " + message);
+        this.filename = filename;
+        this.line = line;
+        this.column = column;
+    }
+
+    /**
+     * Gets the name of the map file.
+     *
+     * @return The name of the file.
+     * @roseuid 5837D31A0002
+     */
+    public String getFilename() {
+        return this.filename;
+    }
+
+    /**
+     * Gets the line of the file where the problem was found.
+     *
+     * @return The line, starting at 1.
+     * @roseuid 5837D31A0003
+     */
+    public int getLine() {
+        return this.line;
+    }
+
+    /**
+     * Gets the column of the file where the problem was found.
+     *
+     * @return The column, starting at 1.
+     * @roseuid 5837D31A0004
+     */
+    public int getColumn() {
+        return this.column;
+    }
+
+}
@@ -0,0 +1,254 @@
+package model;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Parser of the map files. A map file starts with a line holding the number of lines and the number of columns of the
+ * map, followed by one line per line of the map holding the type of every tile as the ordinal of a CASE_TYPES value,
+ * separated by spaces or tabs. The file is memory-mapped and the numbers are read directly from its bytes, without
+ * decoding it to characters or splitting it into strings, so that large maps load quickly. The parser is not
+ * thread-safe, but every map file can be parsed by its own parser.
+ *
+ * @author SnapDragon
+ *
+ */
+public class MapParser {
+
+    private static final int TYPE_COUNT = GameGrid.CASE_TYPES.values().length;
+
+    private String filename;
+    private MappedByteBuffer buffer;
+    private int position = 0;
+    private int limit;
+
+    /**
+     * Position of the next byte in the file, for the error messages.
+     */
+    private int line = 1;
+    private int lineStart = 0;
+
+    private int columnCount;
+
+    /**
+     * Constructs a parser reading the bytes of a mapped file.
+     *
+     * @param filename Name of the file.
+     * @param buffer Content of the file.
+     * @roseuid 5837D31A0010
+     */
+    private MapParser(String filename, MappedByteBuffer buffer) {
+        this.filename = filename;
+        this.buffer = buffer;
+        this.limit = buffer.limit();
+    }
+
+    /**
+     * Parses a map file.
+     *
+     * @param filename Name of the map file.
+     * @return A new grid holding the tiles of the map.
+     * @throws MapFormatException If the file does not have the expected format.
+     * @throws IOException If the file cannot be read.
+     * @roseuid 5837D31A0011
+     */
+    public static GameGrid parse(String filename) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(filename, "r");
+        try {
+            FileChannel channel = file.getChannel();
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new MapFormatException(filename, 1, 1, "file is too large (" + channel.size() + " bytes)");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new MapParser(filename, buffer).parseMap();
+        } finally {
+            file.close();
+        }
+    }
+
+    /**
+     * Parses the header and the tiles of the map.
+     *
+     * @return A new grid holding the tiles of the map.
+     * @throws MapFormatException If the file does not have the expected format.
+     * @roseuid 5837D31A0012
+     */
+    private GameGrid parseMap() throws MapFormatException {
+        int lineCount = this.readNumber(-1, 0);
+        int columnCount = this.readNumber(-1, 1);
+        this.columnCount = columnCount;
+        if (lineCount == 0 || columnCount == 0) {
+            throw this.error("the map must have at least one line and one column");
+        }
+        if ((long) lineCount * columnCount > Integer.MAX_VALUE) {
+            throw this.error("the map is too large (" + lineCount + "x" + columnCount + ")");
+        }
+        this.endLine(0);
+
+        byte[] cells = new byte[lineCount * columnCount];
+        int cell = 0;
+        for (int i = 0; i < lineCount; i++) {
+            for (int j = 0; j < columnCount; j++) {
+                int tileStart = this.position;
+                int type = this.readNumber(i, j);
+                if (type >= MapParser.TYPE_COUNT) {
+                    this.position = tileStart;
+                    this.skipBlanks();
+                    throw this.error("invalid tile type " + type + ", expected 0 to " + (MapParser.TYPE_COUNT - 1));
+                }
+                cells[cell++] = (byte) type;
+            }
+            this.endLine(columnCount);
+        }
+
+        // Only blank lines may follow the map.
+        while (this.position < this.limit) {
+            byte b = this.buffer.get(this.position);
+            if (b == '\n') {
+                this.newLine();
+            } else if (MapParser.isBlank(b)) {
+                this.position++;
+            } else {
+                throw this.error("unexpected data after the " + lineCount + " lines of the map");
+            }
+        }
+
+        GameGrid grid = new GameGrid();
+        grid.setCells(lineCount, columnCount, cells);
+        return grid;
+    }
+
+    /**
+     * Reads a number on the current line, after the blanks that precede it.
+     *
+     * @param mapLine Line of the map of the tile to read, or -1 to read a dimension of the header.
+     * @param mapColumn Column of the map of the tile to read, or index of the dimension in the header.
+     * @return The number.
+     * @throws MapFormatException If there is no number at the current position.
+     * @roseuid 5837D31A0013
+     */
+    private int readNumber(int mapLine, int mapColumn) throws MapFormatException {
+        this.skipBlanks();
+        if (this.position == this.limit || !MapParser.isDigit(this.buffer.get(this.position))) {
+            String found = this.position == this.limit ? ", found the end of the file"
+                            : this.buffer.get(this.position) == '\n' ? ", found the end of the line" : "";
+            throw this.error("expected the " + this.describe(mapLine, mapColumn) + found);
+        }
+        int start = this.position;
+        long value = 0;
+        while (this.position < this.limit && MapParser.isDigit(this.buffer.get(this.position))) {
+            value = value * 10 + (this.buffer.get(this.position) - '0');
+            if (value > Integer.MAX_VALUE) {
+                this.position = start;
+                throw this.error("number too large for the " + this.describe(mapLine, mapColumn));
+            }
+            this.position++;
+        }
+        if (this.position < this.limit && !MapParser.isSeparator(this.buffer.get(this.position))) {
+            throw this.error("unexpected character '" + (char) this.buffer.get(this.position) + "' in the "
+                            + this.describe(mapLine, mapColumn));
+        }
+        return (int) value;
+    }
+
+    /**
+     * Describes a number of the file for the error messages. The description is only built when an error is reported.
+     *
+     * @param mapLine Line of the map of the tile, or -1 for a dimension of the header.
+     * @param mapColumn Column of the map of the tile, or index of the dimension in the header.
+     * @return The description of the number.
+     * @roseuid 5837D31A001B
+     */
+    private String describe(int mapLine, int mapColumn) {
+        if (mapLine == -1) {
+            return mapColumn == 0 ? "number of lines" : "number of columns";
+        }
+        return "tile " + (mapColumn + 1) + " of " + this.columnCount + " of map line " + (mapLine + 1);
+    }
+
+    /**
+     * Reads the end of the current line, after the blanks that precede it.
+     *
+     * @param valueCount Number of values read on the line, for the error message.
+     * @throws MapFormatException If there are more values on the line.
+     * @roseuid 5837D31A0014
+     */
+    private void endLine(int valueCount) throws MapFormatException {
+        this.skipBlanks();
+        if (this.position == this.limit) {
+            return;
+        }
+        if (this.buffer.get(this.position) != '\n') {
+            throw this.error(valueCount == 0 ? "unexpected data after the dimensions of the map"
+                            : "too many tiles on the line, expected " + valueCount);
+        }
+        this.newLine();
+    }
+
+    /**
+     * Skips the spaces, tabs and carriage returns at the current position.
+     * @roseuid 5837D31A0015
+     */
+    private void skipBlanks() {
+        while (this.position < this.limit && MapParser.isBlank(this.buffer.get(this.position))) {
+            this.position++;
+        }
+    }
+
+    /**
+     * Moves past the line feed at the current position.
+     * @roseuid 5837D31A0016
+     */
+    private void newLine() {
+        this.position++;
+        this.line++;
+        this.lineStart = this.position;
+    }
+
+    /**
+     * Creates the exception for a problem at the current position.
+     *
+     * @param message Description of the problem.
+     * @return The exception to throw.
+     * @roseuid 5837D31A0017
+     */
+    private MapFormatException error(String message) {
+        return new MapFormatException(this.filename, this.line, this.position - this.lineStart + 1, message);
+    }
+
+    /**
+     * Determines if a byte is a decimal digit.
+     *
+     * @param b Byte to check.
+     * @return True if the byte is a digit.
+     * @roseuid 5837D31A0018
+     */
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    /**
+     * Determines if a byte separates the values of a line.
+     *
+     * @param b Byte to check.
+     * @return True if the byte is a space, a tab or a carriage return.
+     * @roseuid 5837D31A0019
+     */
+    private static boolean isBlank(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+
+    /**
+     * Determines if a byte may follow a number.
+     *
+     * @param b Byte to check.
+     * @return True if the byte is a blank or a line feed.
+     * @roseuid 5837D31A001A
+     */
+    private static boolean isSeparator(byte b) {
+        return MapParser.isBlank(b) || b == '\n';
+    }
+
+}
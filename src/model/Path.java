@@ -1,11 +1,13 @@
 package model;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 
 /**
  * This class implements components for calculating shortest path, finding neighbors with minimum distance, getting next
- * location on the path and calculating if a location is on the path.
+ * location on the path and calculating if a location is on the path. A map can have several routes to the exit: the
+ * shortest path is one of them, and the ghosts find their own way with the distance field of the grid.
  *
  * @author SnapDragon
  *
@@ -22,6 +24,26 @@ public class Path {
      */
     private ArrayList<GridLocation> shortestPath;
 
+    /**
+     * Ids of the cells of the shortest path, in path order.
+     */
+    private int[] pathCells;
+
+    /**
+     * Position in the path of every walkable cell of the grid, or -1 for the walkable cells off the path. A walkable
+     * cell is found by its rank in the walkable bit set of the grid: the number of walkable cells in the previous words
+     * of the set, plus the walkable cells before it in its own word. The index takes memory in the number of walkable
+     * cells, not in the size of the grid, and still finds a cell in constant time.
+     */
+    private long[] walkable;
+    private int[] walkableRanks;
+    private int[] walkableIndices;
+
+    /**
+     * Number of columns of the grid, used to compute the cell ids.
+     */
+    private int columns;
+
     /**
      * Creates the shortest path associated with the specified GameGrid object.
      *
@@ -40,27 +62,73 @@ public class Path {
      * @roseuid 5837CC410048
      */
     public GridLocation getNextLocation(GridLocation currentLocation) {
-
-        // Lazy initializes the shortest path.
-        if (this.shortestPath == null) {
-            this.shortestPath = this.calculateShortestPath();
+        int index = this.getPathIndex(currentLocation);
+        if (index == -1) {
+            throw new IllegalArgumentException(currentLocation + " is not on the path");
+        }
+        if (index == this.shortestPath.size() - 1) {
+            return null;
         }
+        return this.shortestPath.get(index + 1);
+    }
 
-        int index = -1;
-        Iterator<GridLocation> itr = shortestPath.iterator();
-        while (itr.hasNext()) {
-            if (itr.next().equals(currentLocation)) {
-                if (!itr.hasNext()) {
-                    return null;
-                }
-                index = shortestPath.indexOf(itr.next());
-                break;
-            }
+    /**
+     * Gets the position of a location in the shortest path, that is how far along the path it is.
+     *
+     * @param location Location to look for.
+     * @return The index of the location in the shortest path, or -1 if it is not on the path.
+     * @roseuid 5837CC41004C
+     */
+    public int getPathIndex(GridLocation location) {
+        this.getShortestPath();
+        if (location.x < 0 || location.y < 0 || location.y >= this.columns) {
+            return -1;
+        }
+        return this.getPathIndex(location.x * this.columns + location.y);
+    }
 
+    /**
+     * Gets the position of a cell in the shortest path. Cell ids are computed as line * columnCount + column.
+     *
+     * @param cell Id of the cell.
+     * @return The index of the cell in the shortest path, or -1 if it is not on the path.
+     * @roseuid 5837CC41004B
+     */
+    public int getPathIndex(int cell) {
+        this.getShortestPath();
+        int word = cell >>> 6;
+        if (cell < 0 || word >= this.walkable.length || (this.walkable[word] & (1L << cell)) == 0) {
+            return -1;
         }
+        return this.walkableIndices[this.rankOf(cell)];
+    }
 
-        return shortestPath.get(index);
+    /**
+     * Gets the rank of a walkable cell, that is the number of walkable cells before it in the grid.
+     *
+     * @param cell Id of a walkable cell.
+     * @return The index of the cell in walkableIndices.
+     * @roseuid 5837CC41004D
+     */
+    private int rankOf(int cell) {
+        int word = cell >>> 6;
+        return this.walkableRanks[word] + Long.bitCount(this.walkable[word] & ((1L << cell) - 1));
+    }
 
+    /**
+     * Gets the id of the cell coming after the specified cell in the shortest path. Cell ids are computed as
+     * line * columnCount + column.
+     *
+     * @param cell Id of the current cell.
+     * @return The id of the next cell, or -1 if the cell is the last one of the path or is not on the path.
+     * @roseuid 5837CC41004A
+     */
+    public int getNextCell(int cell) {
+        int index = this.getPathIndex(cell);
+        if (index == -1 || index == this.pathCells.length - 1) {
+            return -1;
+        }
+        return this.pathCells[index + 1];
     }
 
     /**
@@ -74,101 +142,112 @@ public class Path {
         // Lazy initializes the shortest path.
         if (this.shortestPath == null) {
             this.shortestPath = this.calculateShortestPath();
+            this.buildPathIndex();
         }
         return this.shortestPath;
     }
 
     /**
-     * Returns the shortest path as an array list starts with the entry point
+     * Builds the index of the cells of the shortest path, so that the next location and the position of a cell on the
+     * path can be found in constant time.
+     * @roseuid 5837CC41104A
+     */
+    private void buildPathIndex() {
+        this.columns = this.gamegrid.getColumns();
+        this.walkable = this.gamegrid.walkable == null ? new long[0] : this.gamegrid.walkable;
+        this.walkableRanks = new int[this.walkable.length];
+        int walkableCount = 0;
+        for (int word = 0; word < this.walkable.length; word++) {
+            this.walkableRanks[word] = walkableCount;
+            walkableCount += Long.bitCount(this.walkable[word]);
+        }
+        this.walkableIndices = new int[walkableCount];
+        Arrays.fill(this.walkableIndices, -1);
+
+        int length = this.shortestPath.size();
+        this.pathCells = new int[length];
+        for (int i = 0; i < length; i++) {
+            GridLocation location = this.shortestPath.get(i);
+            int cell = location.x * this.columns + location.y;
+            this.pathCells[i] = cell;
+            this.walkableIndices[this.rankOf(cell)] = i;
+        }
+    }
+
+    /**
+     * Returns the shortest path as an array list starts with the entry point. The path is found by walking down the
+     * distance field of the grid, from the entry point to the exit point. Neither of them is part of the path.
      * @roseuid 5837CC4ECB65E
      */
     private ArrayList<GridLocation> calculateShortestPath() {
         ArrayList<GridLocation> pathlist = new ArrayList<GridLocation>();
-        GridLocation grid = gamegrid.exitPoint();
-        grid = minNeighbor(grid, this.gamegrid.connectivities());
-        while (!(grid.x == gamegrid.entryPoint().x && grid.y == gamegrid.entryPoint().y)) {
-            pathlist.add(0, grid);
-            grid = minNeighbor(grid, this.gamegrid.connectivities());
+        GridLocation entryPoint = this.gamegrid.entryPoint();
+        if (entryPoint == null) {
+            return pathlist;
+        }
+
+        int[] distances = this.gamegrid.distanceField();
+        int columnCount = this.gamegrid.getColumns();
+        int cell = entryPoint.x * columnCount + entryPoint.y;
+        if (distances[cell] == -1) {
+            return pathlist;
+        }
 
+        cell = this.nextCell(cell, distances, columnCount);
+        while (distances[cell] > 0) {
+            pathlist.add(new GridLocation(cell / columnCount, cell % columnCount));
+            cell = this.nextCell(cell, distances, columnCount);
         }
         return pathlist;
     }
 
     /**
-     * Finds the neighbor with the minimum distance from the entry (nearest).
+     * Finds the neighbor that is the nearest the exit point. When several neighbors are at the same distance, the
+     * first one is taken in the order left, up, down, right, as the ghosts do.
      *
-     * @param gridLocation The current grid location.
-     * @param connectivites Grid connectivities.
+     * @param cell Id of the current cell.
+     * @param distances Distance field of the grid.
+     * @param columnCount Number of columns of the grid.
      *
-     * @return neighbor nearest the entry point.
+     * @return Id of the neighbor nearest the exit point.
      * @roseuid 5837CC410560
      */
-    private GridLocation minNeighbor(GridLocation gridLocation, int[][][] connectivites) {
-        int line = gridLocation.x;
-        int column = gridLocation.y;
-        GridLocation minNeighbor = gridLocation;
+    private int nextCell(int cell, int[] distances, int columnCount) {
+        int line = cell / columnCount;
+        int column = cell % columnCount;
+        int next = -1;
 
-        // check the left
-        if (isPath(line, column - 1, connectivites)) {
-            if (connectivites[line][column - 1][1] < connectivites[minNeighbor.x][minNeighbor.y][1]) {
-                minNeighbor = new GridLocation(line, column - 1);
-            }
+        if (column > 0) {
+            next = Path.nearer(cell - 1, next, distances);
         }
-
-        // check above
-        if (isPath(line - 1, column, connectivites)) {
-            if (connectivites[line - 1][column][1] < connectivites[minNeighbor.x][minNeighbor.y][1]) {
-                minNeighbor = new GridLocation(line - 1, column);
-            }
+        if (line > 0) {
+            next = Path.nearer(cell - columnCount, next, distances);
         }
-
-        // check below
-        if (isPath(line + 1, column, connectivites)) {
-            if (connectivites[line + 1][column][1] < connectivites[minNeighbor.x][minNeighbor.y][1]) {
-                minNeighbor = new GridLocation(line + 1, column);
-            }
+        if (cell + columnCount < distances.length) {
+            next = Path.nearer(cell + columnCount, next, distances);
         }
-
-
-        // check the right
-        if (isPath(line, column + 1, connectivites)) {
-            if (connectivites[line][column + 1][1] < connectivites[minNeighbor.x][minNeighbor.y][1]) {
-                minNeighbor = new GridLocation(line, column + 1);
-            }
+        if (column < columnCount - 1) {
+            next = Path.nearer(cell + 1, next, distances);
         }
-
-        return minNeighbor;
+        return next;
     }
 
     /**
-     * Determines if the location specified belongs to the path
+     * Chooses the cell nearest the exit point between a neighbor and the best neighbor found so far.
+     *
+     * @param neighbor Id of the neighbor.
+     * @param best Id of the best neighbor found so far, or -1.
+     * @param distances Distance field of the grid.
      *
-     * @param line Line of the coordinate to validate.
-     * @param column Column of the coordinate to validate.
-     * @param connectivities Matrix used for the connectivity check.
-     * @return True if the location is a valid path location
-     * @roseuid 5837CC4HBC45
+     * @return The neighbor if it can reach the exit and is strictly nearer than the best one, otherwise the best one.
+     * @roseuid 5837CC410561
      */
-    private boolean isPath(int line, int column, int[][][] connectivities) {
-
-        if (line < 0) {
-            return false;
-        }
-        if (line > connectivities.length - 1) {
-            return false;
-        }
-        if (column < 0) {
-            return false;
-        }
-        if (column > connectivities[0].length - 1) {
-            return false;
+    private static int nearer(int neighbor, int best, int[] distances) {
+        int distance = distances[neighbor];
+        if (distance == -1 || (best != -1 && distance >= distances[best])) {
+            return best;
         }
-
-        if (connectivities[line][column][0] == 0) {
-            return false;
-        }
-
-        return true;
+        return neighbor;
     }
 
     /**
@@ -178,7 +257,7 @@ public class Path {
     @Override
     public String toString() {
         String pathstr = "";
-        this.shortestPath = this.calculateShortestPath();
+        this.getShortestPath();
         pathstr += "[" + shortestPath.get(0).x + "," + shortestPath.get(0).y + "]";
         Iterator<GridLocation> itr = shortestPath.iterator();
         while (itr.hasNext()) {
@@ -0,0 +1,42 @@
+package model.event;
+
+/**
+ * Base class of the events fired by a game. Events are collected while a turn is played, or while a user action is
+ * handled, and delivered to the listeners in a single GameEventBatch. Cell ids are computed as line * columnCount +
+ * column.
+ *
+ * @author SnapDragon
+ *
+ */
+public abstract class GameEvent {
+
+    /**
+     * Types of the game events. Listeners subscribe to a set of these types.
+     */
+    public enum Type {
+        GHOST_SPAWNED, GHOST_MOVED, GHOST_KILLED, TOWER_FIRED, TOWER_PLACED, MONEY_CHANGED, WAVE_ENDED
+    }
+
+    private final Type type;
+
+    /**
+     * Constructs an event of the specified type.
+     *
+     * @param type Type of the event.
+     * @roseuid 5837D30A0001
+     */
+    protected GameEvent(Type type) {
+        this.type = type;
+    }
+
+    /**
+     * Gets the type of the event.
+     *
+     * @return The type of the event.
+     * @roseuid 5837D30A0002
+     */
+    public Type getType() {
+        return this.type;
+    }
+
+}
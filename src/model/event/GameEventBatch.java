@@ -0,0 +1,64 @@
+package model.event;
+
+import java.util.Collections;
+import java.util.List;
+
+import model.GameSnapshot;
+
+/**
+ * Events fired by a game during a turn or a user action, in the order they happened, with the snapshot of the game
+ * published once they were all fired.
+ *
+ * @author SnapDragon
+ *
+ */
+public class GameEventBatch {
+
+    private final long sequence;
+    private final List<GameEvent> events;
+    private final GameSnapshot snapshot;
+
+    /**
+     * Constructs a batch of events.
+     *
+     * @param events Events of the batch. The list must not be modified afterwards.
+     * @param snapshot State of the game after the events.
+     * @roseuid 5837D30A0090
+     */
+    public GameEventBatch(List<GameEvent> events, GameSnapshot snapshot) {
+        this.sequence = snapshot.getSequence();
+        this.events = Collections.unmodifiableList(events);
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * Gets the serial number of the batch, which is the one of its snapshot.
+     *
+     * @return The serial number of the batch.
+     * @roseuid 5837D30A0091
+     */
+    public long getSequence() {
+        return this.sequence;
+    }
+
+    /**
+     * Gets the events of the batch.
+     *
+     * @return The events, in the order they were fired.
+     * @roseuid 5837D30A0092
+     */
+    public List<GameEvent> getEvents() {
+        return this.events;
+    }
+
+    /**
+     * Gets the state of the game after the events of the batch.
+     *
+     * @return An immutable snapshot of the game.
+     * @roseuid 5837D30A0093
+     */
+    public GameSnapshot getSnapshot() {
+        return this.snapshot;
+    }
+
+}
@@ -0,0 +1,155 @@
+package model.event;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import model.GameSnapshot;
+
+/**
+ * Collects the events fired by a game and delivers them in batches to the listeners. Every listener only receives the
+ * types of events it subscribed to, and is not called at all when a batch holds none of them. Events are only
+ * recorded when a listener subscribed to their type, so that a game without listeners does not create them.
+ *
+ * @author SnapDragon
+ *
+ */
+public class GameEventBus {
+
+    /**
+     * A listener and the types of events it subscribed to.
+     */
+    private static class Subscription {
+        private final GameEventListener listener;
+        private final EnumSet<GameEvent.Type> types;
+
+        Subscription(GameEventListener listener, EnumSet<GameEvent.Type> types) {
+            this.listener = listener;
+            this.types = types;
+        }
+    }
+
+    private CopyOnWriteArrayList<Subscription> subscriptions = new CopyOnWriteArrayList<Subscription>();
+
+    /**
+     * Union of the types of events the listeners subscribed to, replaced on every subscription change.
+     */
+    private volatile EnumSet<GameEvent.Type> subscribedTypes = EnumSet.noneOf(GameEvent.Type.class);
+
+    /**
+     * Events fired since the last batch was delivered.
+     */
+    private ArrayList<GameEvent> pendingEvents = new ArrayList<GameEvent>();
+
+    /**
+     * Subscribes a listener to some types of events.
+     *
+     * @param listener Listener to add.
+     * @param types Types of events the listener receives.
+     * @roseuid 5837D30A00A0
+     */
+    public synchronized void subscribe(GameEventListener listener, Set<GameEvent.Type> types) {
+        this.unsubscribe(listener);
+        EnumSet<GameEvent.Type> subscribed = EnumSet.noneOf(GameEvent.Type.class);
+        subscribed.addAll(types);
+        this.subscriptions.add(new Subscription(listener, subscribed));
+        this.updateSubscribedTypes();
+    }
+
+    /**
+     * Unsubscribes a listener from all the events.
+     *
+     * @param listener Listener to remove.
+     * @roseuid 5837D30A00A1
+     */
+    public synchronized void unsubscribe(GameEventListener listener) {
+        for (Subscription subscription : this.subscriptions) {
+            if (subscription.listener == listener) {
+                this.subscriptions.remove(subscription);
+            }
+        }
+        this.updateSubscribedTypes();
+    }
+
+    /**
+     * Computes the union of the types of events the listeners subscribed to.
+     * @roseuid 5837D30A00A2
+     */
+    private void updateSubscribedTypes() {
+        EnumSet<GameEvent.Type> types = EnumSet.noneOf(GameEvent.Type.class);
+        for (Subscription subscription : this.subscriptions) {
+            types.addAll(subscription.types);
+        }
+        this.subscribedTypes = types;
+    }
+
+    /**
+     * Determines if any listener is attached to the bus.
+     *
+     * @return True if there is at least one listener, false otherwise.
+     * @roseuid 5837D30A00A3
+     */
+    public boolean hasListeners() {
+        return !this.subscriptions.isEmpty();
+    }
+
+    /**
+     * Determines if a listener subscribed to a type of events. The game checks it before creating an event.
+     *
+     * @param type Type of events.
+     * @return True if the events of this type should be fired, false otherwise.
+     * @roseuid 5837D30A00A4
+     */
+    public boolean isSubscribed(GameEvent.Type type) {
+        return this.subscribedTypes.contains(type);
+    }
+
+    /**
+     * Determines if events were recorded since the last batch was delivered.
+     *
+     * @return True if there are events to deliver, false otherwise.
+     * @roseuid 5837D30A00A7
+     */
+    public boolean hasPendingEvents() {
+        return !this.pendingEvents.isEmpty();
+    }
+
+    /**
+     * Records an event, to be delivered with the next batch. Events of a type no listener subscribed to are ignored.
+     *
+     * @param event Event to record.
+     * @roseuid 5837D30A00A5
+     */
+    public void fire(GameEvent event) {
+        if (this.isSubscribed(event.getType())) {
+            this.pendingEvents.add(event);
+        }
+    }
+
+    /**
+     * Delivers the events recorded since the last batch to the listeners, then forgets them.
+     *
+     * @param snapshot State of the game after the events.
+     * @roseuid 5837D30A00A6
+     */
+    public void deliver(GameSnapshot snapshot) {
+        if (this.pendingEvents.isEmpty()) {
+            return;
+        }
+        for (Subscription subscription : this.subscriptions) {
+            List<GameEvent> events = new ArrayList<GameEvent>();
+            for (GameEvent event : this.pendingEvents) {
+                if (subscription.types.contains(event.getType())) {
+                    events.add(event);
+                }
+            }
+            if (!events.isEmpty()) {
+                subscription.listener.eventsFired(new GameEventBatch(events, snapshot));
+            }
+        }
+        this.pendingEvents.clear();
+    }
+
+}
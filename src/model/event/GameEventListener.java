@@ -0,0 +1,20 @@
+package model.event;
+
+/**
+ * Interface of the objects listening to the events of a game.
+ *
+ * @author SnapDragon
+ *
+ */
+public interface GameEventListener {
+
+    /**
+     * Called once per turn, and once per user action, with the events of the types the listener subscribed to. It is
+     * called from the thread that played the turn, usually the game thread, so it should return quickly.
+     *
+     * @param batch Events fired since the previous batch.
+     * @roseuid 5837D30A0080
+     */
+    void eventsFired(GameEventBatch batch);
+
+}
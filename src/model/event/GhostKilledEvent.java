@@ -0,0 +1,60 @@
+package model.event;
+
+/**
+ * Event fired when a ghost is killed by the towers and removed from the grid.
+ *
+ * @author SnapDragon
+ *
+ */
+public class GhostKilledEvent extends GameEvent {
+
+    private final int ghostID;
+    private final int cell;
+    private final int reward;
+
+    /**
+     * Constructs the event.
+     *
+     * @param ghostID Id of the killed ghost.
+     * @param cell Id of the cell where the ghost was killed.
+     * @param reward Money earned by the player for the kill.
+     * @roseuid 5837D30A0030
+     */
+    public GhostKilledEvent(int ghostID, int cell, int reward) {
+        super(Type.GHOST_KILLED);
+        this.ghostID = ghostID;
+        this.cell = cell;
+        this.reward = reward;
+    }
+
+    /**
+     * Gets the id of the ghost.
+     *
+     * @return The id of the killed ghost.
+     * @roseuid 5837D30A0031
+     */
+    public int getGhostID() {
+        return this.ghostID;
+    }
+
+    /**
+     * Gets the cell where the ghost was killed.
+     *
+     * @return The id of the cell.
+     * @roseuid 5837D30A0032
+     */
+    public int getCell() {
+        return this.cell;
+    }
+
+    /**
+     * Gets the money earned by the player for the kill.
+     *
+     * @return The reward of the ghost.
+     * @roseuid 5837D30A0033
+     */
+    public int getReward() {
+        return this.reward;
+    }
+
+}
@@ -0,0 +1,70 @@
+package model.event;
+
+/**
+ * Event fired when a ghost moves forward on the grid, or leaves it through the exit point.
+ *
+ * @author SnapDragon
+ *
+ */
+public class GhostMovedEvent extends GameEvent {
+
+    private final int ghostID;
+    private final int fromCell;
+    private final int toCell;
+
+    /**
+     * Constructs the event.
+     *
+     * @param ghostID Id of the ghost.
+     * @param fromCell Id of the cell the ghost left.
+     * @param toCell Id of the cell the ghost moved to, or -1 if it went through the exit point.
+     * @roseuid 5837D30A0020
+     */
+    public GhostMovedEvent(int ghostID, int fromCell, int toCell) {
+        super(Type.GHOST_MOVED);
+        this.ghostID = ghostID;
+        this.fromCell = fromCell;
+        this.toCell = toCell;
+    }
+
+    /**
+     * Gets the id of the ghost.
+     *
+     * @return The id of the ghost that moved.
+     * @roseuid 5837D30A0021
+     */
+    public int getGhostID() {
+        return this.ghostID;
+    }
+
+    /**
+     * Gets the cell the ghost left.
+     *
+     * @return The id of the cell.
+     * @roseuid 5837D30A0022
+     */
+    public int getFromCell() {
+        return this.fromCell;
+    }
+
+    /**
+     * Gets the cell the ghost moved to.
+     *
+     * @return The id of the cell, or -1 if the ghost went through the exit point.
+     * @roseuid 5837D30A0023
+     */
+    public int getToCell() {
+        return this.toCell;
+    }
+
+    /**
+     * Determines if the ghost went through the exit point, costing a life to the player.
+     *
+     * @return True if the ghost left the grid, false otherwise.
+     * @roseuid 5837D30A0024
+     */
+    public boolean hasEscaped() {
+        return this.toCell == -1;
+    }
+
+}
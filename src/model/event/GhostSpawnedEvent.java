@@ -0,0 +1,60 @@
+package model.event;
+
+/**
+ * Event fired when a ghost enters the grid.
+ *
+ * @author SnapDragon
+ *
+ */
+public class GhostSpawnedEvent extends GameEvent {
+
+    private final int ghostID;
+    private final int cell;
+    private final int level;
+
+    /**
+     * Constructs the event.
+     *
+     * @param ghostID Id of the new ghost.
+     * @param cell Id of the cell where the ghost was placed.
+     * @param level Level of the ghost.
+     * @roseuid 5837D30A0010
+     */
+    public GhostSpawnedEvent(int ghostID, int cell, int level) {
+        super(Type.GHOST_SPAWNED);
+        this.ghostID = ghostID;
+        this.cell = cell;
+        this.level = level;
+    }
+
+    /**
+     * Gets the id of the ghost.
+     *
+     * @return The id of the new ghost.
+     * @roseuid 5837D30A0011
+     */
+    public int getGhostID() {
+        return this.ghostID;
+    }
+
+    /**
+     * Gets the cell where the ghost was placed.
+     *
+     * @return The id of the cell.
+     * @roseuid 5837D30A0012
+     */
+    public int getCell() {
+        return this.cell;
+    }
+
+    /**
+     * Gets the level of the ghost.
+     *
+     * @return The level of the ghost.
+     * @roseuid 5837D30A0013
+     */
+    public int getLevel() {
+        return this.level;
+    }
+
+}
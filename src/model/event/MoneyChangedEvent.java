@@ -0,0 +1,57 @@
+package model.event;
+
+/**
+ * Event fired when the amount of money of the player changes.
+ *
+ * @author SnapDragon
+ *
+ */
+public class MoneyChangedEvent extends GameEvent {
+
+    private final int previousMoney;
+    private final int money;
+
+    /**
+     * Constructs the event.
+     *
+     * @param previousMoney Amount of money before the change.
+     * @param money Amount of money after the change.
+     * @roseuid 5837D30A0060
+     */
+    public MoneyChangedEvent(int previousMoney, int money) {
+        super(Type.MONEY_CHANGED);
+        this.previousMoney = previousMoney;
+        this.money = money;
+    }
+
+    /**
+     * Gets the amount of money before the change.
+     *
+     * @return The previous amount of money.
+     * @roseuid 5837D30A0061
+     */
+    public int getPreviousMoney() {
+        return this.previousMoney;
+    }
+
+    /**
+     * Gets the amount of money after the change.
+     *
+     * @return The new amount of money.
+     * @roseuid 5837D30A0062
+     */
+    public int getMoney() {
+        return this.money;
+    }
+
+    /**
+     * Gets the money earned, or spent if negative.
+     *
+     * @return The difference between the new and the previous amount.
+     * @roseuid 5837D30A0063
+     */
+    public int getDelta() {
+        return this.money - this.previousMoney;
+    }
+
+}
@@ -0,0 +1,60 @@
+package model.event;
+
+/**
+ * Event fired when a tower attacks a ghost.
+ *
+ * @author SnapDragon
+ *
+ */
+public class TowerFiredEvent extends GameEvent {
+
+    private final int towerID;
+    private final int towerCell;
+    private final int targetCell;
+
+    /**
+     * Constructs the event.
+     *
+     * @param towerID Id of the tower.
+     * @param towerCell Id of the cell of the tower.
+     * @param targetCell Id of the cell of the attacked ghost.
+     * @roseuid 5837D30A0040
+     */
+    public TowerFiredEvent(int towerID, int towerCell, int targetCell) {
+        super(Type.TOWER_FIRED);
+        this.towerID = towerID;
+        this.towerCell = towerCell;
+        this.targetCell = targetCell;
+    }
+
+    /**
+     * Gets the id of the tower.
+     *
+     * @return The id of the tower that fired.
+     * @roseuid 5837D30A0041
+     */
+    public int getTowerID() {
+        return this.towerID;
+    }
+
+    /**
+     * Gets the cell of the tower.
+     *
+     * @return The id of the cell.
+     * @roseuid 5837D30A0042
+     */
+    public int getTowerCell() {
+        return this.towerCell;
+    }
+
+    /**
+     * Gets the cell of the attacked ghost.
+     *
+     * @return The id of the cell.
+     * @roseuid 5837D30A0043
+     */
+    public int getTargetCell() {
+        return this.targetCell;
+    }
+
+}
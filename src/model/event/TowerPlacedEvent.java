@@ -0,0 +1,60 @@
+package model.event;
+
+/**
+ * Event fired when a tower is placed on the grid.
+ *
+ * @author SnapDragon
+ *
+ */
+public class TowerPlacedEvent extends GameEvent {
+
+    private final int towerID;
+    private final int cell;
+    private final String towerName;
+
+    /**
+     * Constructs the event.
+     *
+     * @param towerID Id of the tower.
+     * @param cell Id of the cell where the tower was placed.
+     * @param towerName Name of the type of tower.
+     * @roseuid 5837D30A0050
+     */
+    public TowerPlacedEvent(int towerID, int cell, String towerName) {
+        super(Type.TOWER_PLACED);
+        this.towerID = towerID;
+        this.cell = cell;
+        this.towerName = towerName;
+    }
+
+    /**
+     * Gets the id of the tower.
+     *
+     * @return The id of the placed tower.
+     * @roseuid 5837D30A0051
+     */
+    public int getTowerID() {
+        return this.towerID;
+    }
+
+    /**
+     * Gets the cell where the tower was placed.
+     *
+     * @return The id of the cell.
+     * @roseuid 5837D30A0052
+     */
+    public int getCell() {
+        return this.cell;
+    }
+
+    /**
+     * Gets the name of the type of tower.
+     *
+     * @return The name of the tower.
+     * @roseuid 5837D30A0053
+     */
+    public String getTowerName() {
+        return this.towerName;
+    }
+
+}
@@ -0,0 +1,60 @@
+package model.event;
+
+/**
+ * Event fired when all the ghosts of a wave have been killed or have escaped.
+ *
+ * @author SnapDragon
+ *
+ */
+public class WaveEndedEvent extends GameEvent {
+
+    private final int wave;
+    private final int lives;
+    private final int killedGhosts;
+
+    /**
+     * Constructs the event.
+     *
+     * @param wave Serial number of the wave that ended.
+     * @param lives Remaining lives of the player.
+     * @param killedGhosts Number of ghosts killed since the beginning of the game.
+     * @roseuid 5837D30A0070
+     */
+    public WaveEndedEvent(int wave, int lives, int killedGhosts) {
+        super(Type.WAVE_ENDED);
+        this.wave = wave;
+        this.lives = lives;
+        this.killedGhosts = killedGhosts;
+    }
+
+    /**
+     * Gets the wave that ended.
+     *
+     * @return The serial number of the wave.
+     * @roseuid 5837D30A0071
+     */
+    public int getWave() {
+        return this.wave;
+    }
+
+    /**
+     * Gets the remaining lives of the player.
+     *
+     * @return The life count of the player.
+     * @roseuid 5837D30A0072
+     */
+    public int getLives() {
+        return this.lives;
+    }
+
+    /**
+     * Gets the number of ghosts killed since the beginning of the game.
+     *
+     * @return The number of killed ghosts.
+     * @roseuid 5837D30A0073
+     */
+    public int getKilledGhosts() {
+        return this.killedGhosts;
+    }
+
+}
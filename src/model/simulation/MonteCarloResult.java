@@ -0,0 +1,166 @@
+package model.simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a set of games played by the MonteCarloRunner. The per wave statistics only include the games that
+ * reached the wave.
+ *
+ * @author SnapDragon
+ *
+ */
+public class MonteCarloResult {
+
+    private SampleStatistics survival = new SampleStatistics();
+    private SampleStatistics livesLost = new SampleStatistics();
+    private SampleStatistics kills = new SampleStatistics();
+    private SampleStatistics turns = new SampleStatistics();
+    private ArrayList<SampleStatistics> killsPerWave = new ArrayList<SampleStatistics>();
+    private ArrayList<SampleStatistics> moneyPerWave = new ArrayList<SampleStatistics>();
+
+    /**
+     * Records the outcome of a game.
+     *
+     * @param won True if the game was won.
+     * @param lost Number of lives lost during the game.
+     * @param killed Number of ghosts killed during the game.
+     * @param gameTurns Number of turns played.
+     * @param kills Number of ghosts killed during each wave played.
+     * @param money Money of the player at the end of each wave played.
+     * @param waveCount Number of waves played.
+     * @roseuid 5837D10A0040
+     */
+    void addGame(boolean won, int lost, int killed, long gameTurns, int[] kills, int[] money, int waveCount) {
+        this.survival.add(won ? 1 : 0);
+        this.livesLost.add(lost);
+        this.kills.add(killed);
+        this.turns.add(gameTurns);
+        for (int wave = 0; wave < waveCount; wave++) {
+            MonteCarloResult.statisticsOf(this.killsPerWave, wave).add(kills[wave]);
+            MonteCarloResult.statisticsOf(this.moneyPerWave, wave).add(money[wave]);
+        }
+    }
+
+    /**
+     * Adds the games of another result to this one.
+     *
+     * @param other Result to add. It is not modified.
+     * @roseuid 5837D10A0041
+     */
+    void merge(MonteCarloResult other) {
+        this.survival.merge(other.survival);
+        this.livesLost.merge(other.livesLost);
+        this.kills.merge(other.kills);
+        this.turns.merge(other.turns);
+        for (int wave = 0; wave < other.killsPerWave.size(); wave++) {
+            MonteCarloResult.statisticsOf(this.killsPerWave, wave).merge(other.killsPerWave.get(wave));
+            MonteCarloResult.statisticsOf(this.moneyPerWave, wave).merge(other.moneyPerWave.get(wave));
+        }
+    }
+
+    /**
+     * Gets the statistics of a wave, adding empty statistics for the waves not reached yet.
+     *
+     * @param statistics Statistics of every wave.
+     * @param wave Index of the wave, starting at 0.
+     * @return The statistics of the wave.
+     * @roseuid 5837D10A0042
+     */
+    private static SampleStatistics statisticsOf(ArrayList<SampleStatistics> statistics, int wave) {
+        while (statistics.size() <= wave) {
+            statistics.add(new SampleStatistics());
+        }
+        return statistics.get(wave);
+    }
+
+    /**
+     * Gets the number of games played.
+     *
+     * @return The number of games.
+     * @roseuid 5837D10A0043
+     */
+    public long getGameCount() {
+        return this.survival.getCount();
+    }
+
+    /**
+     * Gets the survival rate: the proportion of games won.
+     *
+     * @return The statistics of the games won, 1 for a won game and 0 for a lost one.
+     * @roseuid 5837D10A0044
+     */
+    public SampleStatistics getSurvival() {
+        return this.survival;
+    }
+
+    /**
+     * Gets the lives lost per game.
+     *
+     * @return The statistics of the lives lost.
+     * @roseuid 5837D10A0045
+     */
+    public SampleStatistics getLivesLost() {
+        return this.livesLost;
+    }
+
+    /**
+     * Gets the ghosts killed per game.
+     *
+     * @return The statistics of the kills.
+     * @roseuid 5837D10A0049
+     */
+    public SampleStatistics getKills() {
+        return this.kills;
+    }
+
+    /**
+     * Gets the turns played per game.
+     *
+     * @return The statistics of the game lengths.
+     * @roseuid 5837D10A0046
+     */
+    public SampleStatistics getTurns() {
+        return this.turns;
+    }
+
+    /**
+     * Gets the ghosts killed during each wave.
+     *
+     * @return The statistics of the kills, one per wave.
+     * @roseuid 5837D10A0047
+     */
+    public List<SampleStatistics> getKillsPerWave() {
+        return this.killsPerWave;
+    }
+
+    /**
+     * Gets the money of the player at the end of each wave.
+     *
+     * @return The statistics of the money, one per wave.
+     * @roseuid 5837D10A0048
+     */
+    public List<SampleStatistics> getMoneyPerWave() {
+        return this.moneyPerWave;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("games:      %d%n", this.getGameCount()));
+        report.append(String.format("survival:   %s%n", this.survival));
+        report.append(String.format("lives lost: %s%n", this.livesLost));
+        report.append(String.format("kills:      %s%n", this.kills));
+        report.append(String.format("turns:      %s%n", this.turns));
+        for (int wave = 0; wave < this.killsPerWave.size(); wave++) {
+            report.append(String.format("wave %d (%d games): kills %s, money %s%n", wave + 1,
+                            this.killsPerWave.get(wave).getCount(), this.killsPerWave.get(wave),
+                            this.moneyPerWave.get(wave)));
+        }
+        return report.toString();
+    }
+
+}
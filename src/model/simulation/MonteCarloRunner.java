@@ -0,0 +1,210 @@
+package model.simulation;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import model.Game;
+import model.GameGrid;
+
+/**
+ * Plays many headless games of the same map and tower layout in parallel, one game per seed of a range, and gathers
+ * statistics on their outcome. The games share the grid, which is only read while they are played, and are split
+ * between the threads of a ForkJoinPool.
+ *
+ * @author SnapDragon
+ *
+ */
+public class MonteCarloRunner {
+
+    /**
+     * Number of games under which a range of seeds is played by a single task instead of being split.
+     */
+    public static int GAMES_PER_TASK = 64;
+
+    private GameGrid grid;
+    private List<TowerPlacement> layout;
+
+    /**
+     * Constructs a runner for a map file. The map is loaded once, without random bushes, so that every game is played
+     * on the same grid.
+     *
+     * @param mapFile Name of the map file.
+     * @param layout Towers bought before their wave in every game, in order.
+     * @throws IOException If the map file cannot be loaded.
+     * @roseuid 5837D10A0050
+     */
+    public MonteCarloRunner(String mapFile, List<TowerPlacement> layout) throws IOException {
+        this(MonteCarloRunner.loadGrid(mapFile), layout);
+    }
+
+    /**
+     * Constructs a runner for a grid. The grid must not be changed while games are played.
+     *
+     * @param grid Grid on which the games are played.
+     * @param layout Towers bought before their wave in every game, in order.
+     * @roseuid 5837D10A0051
+     */
+    public MonteCarloRunner(GameGrid grid, List<TowerPlacement> layout) {
+        this.grid = grid;
+        this.layout = Collections.unmodifiableList(new ArrayList<TowerPlacement>(layout));
+
+        // Fills the lazy caches of the grid before it is shared between the threads.
+        this.grid.distanceField();
+        this.grid.shortestPath();
+    }
+
+    /**
+     * Loads a map file without random bushes.
+     *
+     * @param mapFile Name of the map file.
+     * @return The loaded grid.
+     * @throws IOException If the map file cannot be loaded.
+     * @roseuid 5837D10A0052
+     */
+    private static GameGrid loadGrid(String mapFile) throws IOException {
+        GameGrid grid = new GameGrid();
+        grid.readFromFile(mapFile, false);
+        return grid;
+    }
+
+    /**
+     * Plays one game per seed of a range on the common ForkJoinPool.
+     *
+     * @param firstSeed Seed of the first game.
+     * @param gameCount Number of games to play, with the seeds firstSeed to firstSeed + gameCount - 1.
+     * @return The statistics of the games.
+     * @roseuid 5837D10A0053
+     */
+    public MonteCarloResult run(long firstSeed, int gameCount) {
+        return this.run(firstSeed, gameCount, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Plays one game per seed of a range on the specified ForkJoinPool.
+     *
+     * @param firstSeed Seed of the first game.
+     * @param gameCount Number of games to play, with the seeds firstSeed to firstSeed + gameCount - 1.
+     * @param pool Pool playing the games.
+     * @return The statistics of the games.
+     * @roseuid 5837D10A0054
+     */
+    public MonteCarloResult run(long firstSeed, int gameCount, ForkJoinPool pool) {
+        return pool.invoke(this.task(firstSeed, gameCount));
+    }
+
+    /**
+     * Creates the task playing one game per seed of a range, to be run within a larger ForkJoin computation.
+     *
+     * @param firstSeed Seed of the first game.
+     * @param gameCount Number of games to play.
+     * @return The task computing the statistics of the games.
+     * @roseuid 5837D10A0057
+     */
+    RecursiveTask<MonteCarloResult> task(long firstSeed, int gameCount) {
+        return new SeedRangeTask(firstSeed, gameCount);
+    }
+
+    /**
+     * Plays a range of seeds, either directly or by splitting it in two halves played in parallel.
+     */
+    private class SeedRangeTask extends RecursiveTask<MonteCarloResult> {
+
+        private static final long serialVersionUID = 1L;
+
+        private long firstSeed;
+        private int gameCount;
+
+        SeedRangeTask(long firstSeed, int gameCount) {
+            this.firstSeed = firstSeed;
+            this.gameCount = gameCount;
+        }
+
+        @Override
+        protected MonteCarloResult compute() {
+            if (this.gameCount <= MonteCarloRunner.GAMES_PER_TASK) {
+                MonteCarloResult result = new MonteCarloResult();
+                for (int i = 0; i < this.gameCount; i++) {
+                    MonteCarloRunner.this.playGame(this.firstSeed + i, result);
+                }
+                return result;
+            }
+
+            int half = this.gameCount / 2;
+            SeedRangeTask second = new SeedRangeTask(this.firstSeed + half, this.gameCount - half);
+            second.fork();
+            MonteCarloResult result = new SeedRangeTask(this.firstSeed, half).compute();
+            result.merge(second.join());
+            return result;
+        }
+    }
+
+    /**
+     * Plays a complete game and records its outcome. The towers of the layout are bought before their wave, and the
+     * ones the player cannot afford are not bought.
+     *
+     * @param seed Seed of the game.
+     * @param result Result in which the outcome of the game is recorded.
+     * @roseuid 5837D10A0055
+     */
+    private void playGame(long seed, MonteCarloResult result) {
+        Game game = new Game(this.grid, seed);
+
+        Simulation simulation = new Simulation(game);
+        int[] kills = new int[4];
+        int[] money = new int[4];
+        int waveCount = 0;
+        while (!game.isOver() && !game.isWon()) {
+            int killedBefore = game.getKilledGhosts();
+            TowerPlacement.buyTowers(game, this.layout);
+            simulation.playWave();
+            if (waveCount == kills.length) {
+                kills = Arrays.copyOf(kills, waveCount * 2);
+                money = Arrays.copyOf(money, waveCount * 2);
+            }
+            kills[waveCount] = game.getKilledGhosts() - killedBefore;
+            money[waveCount] = game.getMoney();
+            waveCount++;
+        }
+
+        int livesLost = Game.INITIAL_LIVES - Math.max(game.getLives(), 0);
+        result.addGame(game.isWon(), livesLost, game.getKilledGhosts(), simulation.getTurns(), kills, money,
+                        waveCount);
+    }
+
+    /**
+     * Entry point of the runner.
+     *
+     * @param args Map file, first seed, number of games, then the towers of the layout written as name@line,column
+     *            or name@line,column:wave, for instance: map 1 100000 "Fire tower@4,5" "Explosion tower@6,10:2"
+     * @throws IOException If the map file cannot be loaded.
+     * @roseuid 5837D10A0056
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.out.println("Usage: MonteCarloRunner <map file> <first seed> <game count> "
+                            + "[name@line,column[:wave] ...]");
+            return;
+        }
+        ArrayList<TowerPlacement> layout = new ArrayList<TowerPlacement>();
+        for (int i = 3; i < args.length; i++) {
+            layout.add(TowerPlacement.parse(args[i]));
+        }
+        MonteCarloRunner runner = new MonteCarloRunner(args[0], layout);
+        int gameCount = Integer.parseInt(args[2]);
+
+        long start = System.nanoTime();
+        MonteCarloResult result = runner.run(Long.parseLong(args[1]), gameCount);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.println(String.format("%s, layout %s", args[0], layout));
+        System.out.print(result);
+        System.out.println(String.format("%.2f s, %.0f games/s on %d threads", seconds, gameCount / seconds,
+                        ForkJoinPool.commonPool().getParallelism()));
+    }
+
+}
@@ -0,0 +1,414 @@
+package model.simulation;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+import model.Game;
+import model.GameGrid;
+import model.GameGrid.CASE_TYPES;
+import model.GridLocation;
+import model.tower.Tower;
+
+/**
+ * Searches a tower layout for a map. The layout is built greedily: at every step, the most promising free cells of
+ * every type of tower are tried as the next tower of the layout, each candidate layout is evaluated by playing the
+ * same range of seeds with the MonteCarloRunner, and the best candidate is kept if it improves the objective. Towers
+ * are first bought before the first wave, then before the following waves with the rewards of the previous ones. The
+ * candidates of a step are evaluated in parallel. The layout found is applied to a game by calling
+ * TowerPlacement.buyTowers before every wave.
+ *
+ * The promise of a cell is its coverage score: the number of cells the ghosts can walk on within the range of a tower
+ * placed on it. On a map with several routes, the ghosts can take any of them, so all the cells of these routes are
+ * counted, and a tower covering more of them can attack more often. The scores are calculated once per tower range.
+ *
+ * @author SnapDragon
+ *
+ */
+public class PlacementOptimizer {
+
+    /**
+     * Objectives the layout can be optimized for.
+     */
+    public enum Objective {
+        MAXIMIZE_KILLS, MINIMIZE_LIVES_LOST
+    }
+
+    /**
+     * Number of cells tried per type of tower at every step of the search.
+     */
+    public static int CANDIDATES_PER_TOWER = 8;
+
+    /**
+     * Number of games played to evaluate a candidate layout.
+     */
+    public static int GAMES_PER_CANDIDATE = 64;
+
+    private GameGrid grid;
+    private Objective objective;
+    private int columnCount;
+
+    /**
+     * Ids of the cells the ghosts can walk on, between the entry point and the exit point.
+     */
+    private int[] walkedCells;
+
+    /**
+     * Coverage scores of every cell, and the grass cells sorted by decreasing score, per tower range.
+     */
+    private ConcurrentHashMap<Integer, int[]> coverageScores = new ConcurrentHashMap<Integer, int[]>();
+    private ConcurrentHashMap<Integer, Integer[]> rankedCells = new ConcurrentHashMap<Integer, Integer[]>();
+
+    private MonteCarloResult bestResult;
+
+    /**
+     * Constructs an optimizer for a map file, loaded without random bushes.
+     *
+     * @param mapFile Name of the map file.
+     * @param objective Objective of the search.
+     * @throws IOException If the map file cannot be loaded.
+     * @roseuid 5837D10A0060
+     */
+    public PlacementOptimizer(String mapFile, Objective objective) throws IOException {
+        GameGrid mapGrid = new GameGrid();
+        mapGrid.readFromFile(mapFile, false);
+        this.init(mapGrid, objective);
+    }
+
+    /**
+     * Constructs an optimizer for a grid. The grid must not be changed during the search.
+     *
+     * @param grid Grid for which the layout is searched.
+     * @param objective Objective of the search.
+     * @roseuid 5837D10A0061
+     */
+    public PlacementOptimizer(GameGrid grid, Objective objective) {
+        this.init(grid, objective);
+    }
+
+    /**
+     * Initializes the optimizer.
+     *
+     * @param grid Grid for which the layout is searched.
+     * @param objective Objective of the search.
+     * @roseuid 5837D10A0062
+     */
+    private void init(GameGrid grid, Objective objective) {
+        this.grid = grid;
+        this.objective = objective;
+        this.columnCount = grid.getColumns();
+        this.walkedCells = this.walkedCells();
+    }
+
+    /**
+     * Finds the cells the ghosts can walk on. A ghost always steps to a neighbor nearer the exit point, so these are
+     * the cells reached from the entry point by going down the distance field, without the entry and exit points.
+     *
+     * @return The ids of the cells, computed as line * columnCount + column.
+     * @roseuid 5837D10A0074
+     */
+    private int[] walkedCells() {
+        GridLocation entryPoint = this.grid.entryPoint();
+        int[] distances = this.grid.distanceField();
+        if (entryPoint == null || distances[entryPoint.x * this.columnCount + entryPoint.y] == -1) {
+            return new int[0];
+        }
+
+        int entryCell = entryPoint.x * this.columnCount + entryPoint.y;
+        boolean[] reached = new boolean[distances.length];
+        int[] stack = new int[16];
+        int stackSize = 0;
+        int[] walked = new int[16];
+        int walkedCount = 0;
+        reached[entryCell] = true;
+        stack[stackSize++] = entryCell;
+
+        while (stackSize > 0) {
+            int cell = stack[--stackSize];
+            if (cell != entryCell && distances[cell] > 0) {
+                if (walkedCount == walked.length) {
+                    walked = Arrays.copyOf(walked, walkedCount * 2);
+                }
+                walked[walkedCount++] = cell;
+            }
+
+            int line = cell / this.columnCount;
+            int column = cell % this.columnCount;
+            int[] neighbors = {column > 0 ? cell - 1 : -1, line > 0 ? cell - this.columnCount : -1,
+                            cell + this.columnCount < distances.length ? cell + this.columnCount : -1,
+                            column < this.columnCount - 1 ? cell + 1 : -1};
+            for (int neighbor : neighbors) {
+                if (neighbor == -1 || reached[neighbor] || distances[neighbor] == -1
+                                || distances[neighbor] >= distances[cell]) {
+                    continue;
+                }
+                reached[neighbor] = true;
+                if (stackSize == stack.length) {
+                    stack = Arrays.copyOf(stack, stackSize * 2);
+                }
+                stack[stackSize++] = neighbor;
+            }
+        }
+        return Arrays.copyOf(walked, walkedCount);
+    }
+
+    /**
+     * Searches a layout on the common ForkJoinPool.
+     *
+     * @param firstSeed Seed of the first game played to evaluate the candidates.
+     * @return The best layout found, in the order the towers should be bought.
+     * @roseuid 5837D10A0063
+     */
+    public List<TowerPlacement> optimize(long firstSeed) {
+        return this.optimize(firstSeed, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Searches a layout on the specified ForkJoinPool.
+     *
+     * @param firstSeed Seed of the first game played to evaluate the candidates. All the candidates are evaluated on
+     *            the same seeds, so that they are compared on the same games.
+     * @param pool Pool evaluating the candidates.
+     * @return The best layout found, in the order the towers should be bought.
+     * @roseuid 5837D10A0064
+     */
+    public List<TowerPlacement> optimize(long firstSeed, ForkJoinPool pool) {
+        ArrayList<TowerPlacement> layout = new ArrayList<TowerPlacement>();
+        this.bestResult = new MonteCarloRunner(this.grid, layout).run(firstSeed, GAMES_PER_CANDIDATE, pool);
+
+        int wave = 1;
+        while (!this.isPerfect(this.bestResult) && wave <= this.bestResult.getKillsPerWave().size()) {
+            List<List<TowerPlacement>> candidates = this.candidates(layout, wave);
+            List<MonteCarloResult> results = pool.invoke(new CandidatesTask(candidates, firstSeed));
+
+            int bestCandidate = -1;
+            for (int i = 0; i < results.size(); i++) {
+                MonteCarloResult best = bestCandidate == -1 ? this.bestResult : results.get(bestCandidate);
+                if (this.score(results.get(i)) > this.score(best)) {
+                    bestCandidate = i;
+                }
+            }
+
+            // No tower improves the layout before this wave, we try with the rewards of the next one.
+            if (bestCandidate == -1) {
+                wave++;
+            } else {
+                layout = new ArrayList<TowerPlacement>(candidates.get(bestCandidate));
+                this.bestResult = results.get(bestCandidate);
+            }
+        }
+        return layout;
+    }
+
+    /**
+     * Evaluates candidate layouts in parallel, all of them on the same seeds.
+     */
+    private class CandidatesTask extends RecursiveTask<List<MonteCarloResult>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private List<List<TowerPlacement>> candidates;
+        private long firstSeed;
+
+        CandidatesTask(List<List<TowerPlacement>> candidates, long firstSeed) {
+            this.candidates = candidates;
+            this.firstSeed = firstSeed;
+        }
+
+        @Override
+        protected List<MonteCarloResult> compute() {
+            ArrayList<RecursiveTask<MonteCarloResult>> tasks = new ArrayList<RecursiveTask<MonteCarloResult>>();
+            for (List<TowerPlacement> candidate : this.candidates) {
+                MonteCarloRunner runner = new MonteCarloRunner(PlacementOptimizer.this.grid, candidate);
+                tasks.add(runner.task(this.firstSeed, PlacementOptimizer.GAMES_PER_CANDIDATE));
+            }
+            ForkJoinTask.invokeAll(tasks);
+
+            ArrayList<MonteCarloResult> results = new ArrayList<MonteCarloResult>();
+            for (RecursiveTask<MonteCarloResult> task : tasks) {
+                results.add(task.join());
+            }
+            return results;
+        }
+    }
+
+    /**
+     * Builds the candidate layouts of a step: the current layout plus one tower bought before the specified wave, on
+     * one of the best free cells for its type.
+     *
+     * @param layout Current layout.
+     * @param wave Wave before which the new tower is bought.
+     * @return The candidate layouts.
+     * @roseuid 5837D10A0065
+     */
+    private List<List<TowerPlacement>> candidates(List<TowerPlacement> layout, int wave) {
+        HashSet<Integer> occupied = new HashSet<Integer>();
+        for (TowerPlacement placement : layout) {
+            occupied.add(placement.getLine() * this.columnCount + placement.getColumn());
+        }
+
+        ArrayList<List<TowerPlacement>> candidates = new ArrayList<List<TowerPlacement>>();
+        for (Tower tower : Game.AVAILABLE_TOWERS) {
+            int[] scores = this.coverageScores(tower.getRange());
+            int found = 0;
+            for (Integer cell : this.rankedCells(tower.getRange())) {
+                if (found == CANDIDATES_PER_TOWER || scores[cell] == 0) {
+                    break;
+                }
+                if (occupied.contains(cell)) {
+                    continue;
+                }
+                ArrayList<TowerPlacement> candidate = new ArrayList<TowerPlacement>(layout);
+                candidate.add(new TowerPlacement(tower.getName(), cell / this.columnCount, cell % this.columnCount,
+                                wave));
+                candidates.add(candidate);
+                found++;
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Gets the coverage score of every cell for a tower range: the number of cells the ghosts can walk on, on any of
+     * the routes from the entry point down the distance field, within the range of a tower placed on the cell.
+     * Calculated once per range.
+     *
+     * @param range Range of the tower.
+     * @return The scores, indexed by line * columnCount + column.
+     * @roseuid 5837D10A0066
+     */
+    public int[] coverageScores(int range) {
+        int[] scores = this.coverageScores.get(range);
+        if (scores == null) {
+            scores = this.calculateCoverageScores(range);
+            this.coverageScores.put(range, scores);
+        }
+        return scores;
+    }
+
+    /**
+     * Calculates the coverage scores of a tower range. Every cell the ghosts can walk on adds one to the cells within
+     * the range around it, so the cost depends on the length of the routes and not on the size of the map.
+     *
+     * @param range Range of the tower.
+     * @return The scores, indexed by line * columnCount + column.
+     * @roseuid 5837D10A0067
+     */
+    private int[] calculateCoverageScores(int range) {
+        int lineCount = this.grid.getRows();
+        int[] scores = new int[lineCount * this.columnCount];
+        for (int cell : this.walkedCells) {
+            int cellLine = cell / this.columnCount;
+            int cellColumn = cell % this.columnCount;
+            int firstLine = Math.max(0, cellLine - range);
+            int lastLine = Math.min(lineCount - 1, cellLine + range);
+            for (int i = firstLine; i <= lastLine; i++) {
+                int reach = range - Math.abs(i - cellLine);
+                int first = Math.max(0, cellColumn - reach);
+                int last = Math.min(this.columnCount - 1, cellColumn + reach);
+                for (int j = first; j <= last; j++) {
+                    scores[i * this.columnCount + j]++;
+                }
+            }
+        }
+        return scores;
+    }
+
+    /**
+     * Gets the grass cells, where towers can be placed, sorted by decreasing coverage score for a tower range.
+     *
+     * @param range Range of the tower.
+     * @return The ids of the cells.
+     * @roseuid 5837D10A0068
+     */
+    private Integer[] rankedCells(int range) {
+        Integer[] cells = this.rankedCells.get(range);
+        if (cells == null) {
+            final int[] scores = this.coverageScores(range);
+            ArrayList<Integer> grassCells = new ArrayList<Integer>();
+            for (int i = 0; i < this.grid.getRows(); i++) {
+                for (int j = 0; j < this.columnCount; j++) {
+                    if (this.grid.getCase(i, j) == CASE_TYPES.GRASS) {
+                        grassCells.add(i * this.columnCount + j);
+                    }
+                }
+            }
+            cells = grassCells.toArray(new Integer[grassCells.size()]);
+            Arrays.sort(cells, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer first, Integer second) {
+                    return scores[second] - scores[first];
+                }
+            });
+            this.rankedCells.put(range, cells);
+        }
+        return cells;
+    }
+
+    /**
+     * Scores the result of a layout according to the objective. The survival rate breaks the ties.
+     *
+     * @param result Result of the games played with the layout.
+     * @return The score, higher is better.
+     * @roseuid 5837D10A0069
+     */
+    private double score(MonteCarloResult result) {
+        double score = this.objective == Objective.MAXIMIZE_KILLS ? result.getKills().getMean()
+                        : -result.getLivesLost().getMean();
+        return score * 1000 + result.getSurvival().getMean();
+    }
+
+    /**
+     * Determines if a layout cannot be improved: no ghost ever escaped.
+     *
+     * @param result Result of the games played with the layout.
+     * @return True if no life was lost in any game.
+     * @roseuid 5837D10A0070
+     */
+    private boolean isPerfect(MonteCarloResult result) {
+        return result.getLivesLost().getMean() == 0 && result.getSurvival().getMean() == 1;
+    }
+
+    /**
+     * Gets the result of the games played with the layout returned by the last search.
+     *
+     * @return The result of the best layout, or null if no search was made.
+     * @roseuid 5837D10A0071
+     */
+    public MonteCarloResult getBestResult() {
+        return this.bestResult;
+    }
+
+    /**
+     * Entry point of the optimizer.
+     *
+     * @param args Map file, objective (kills or lives) and optionally the first seed of the evaluation games.
+     * @throws IOException If the map file cannot be loaded.
+     * @roseuid 5837D10A0072
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: PlacementOptimizer <map file> <kills|lives> [first seed]");
+            return;
+        }
+        Objective objective = args[1].equals("kills") ? Objective.MAXIMIZE_KILLS : Objective.MINIMIZE_LIVES_LOST;
+        long firstSeed = args.length > 2 ? Long.parseLong(args[2]) : 1;
+
+        long start = System.nanoTime();
+        PlacementOptimizer optimizer = new PlacementOptimizer(args[0], objective);
+        List<TowerPlacement> layout = optimizer.optimize(firstSeed);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.println(String.format("%s, best layout %s", args[0], layout));
+        System.out.print(optimizer.getBestResult());
+        System.out.println(String.format("%.2f s", seconds));
+    }
+
+}
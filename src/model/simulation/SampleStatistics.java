@@ -0,0 +1,113 @@
+package model.simulation;
+
+/**
+ * Running mean and variance of a sample, computed in a single pass. Two statistics computed on separate parts of a
+ * sample can be merged, so that the parts can be computed in parallel.
+ *
+ * @author SnapDragon
+ *
+ */
+public class SampleStatistics {
+
+    /**
+     * Quantile of the normal distribution used for the 95% confidence intervals.
+     */
+    private static final double Z_95 = 1.959964;
+
+    private long count = 0;
+    private double mean = 0;
+
+    /**
+     * Sum of the squared differences to the mean.
+     */
+    private double squaredDeviations = 0;
+
+    /**
+     * Adds a value to the sample.
+     *
+     * @param value Value to add.
+     * @roseuid 5837D10A0030
+     */
+    public void add(double value) {
+        this.count++;
+        double delta = value - this.mean;
+        this.mean += delta / this.count;
+        this.squaredDeviations += delta * (value - this.mean);
+    }
+
+    /**
+     * Adds the values of another sample to this one.
+     *
+     * @param other Statistics of the other sample. It is not modified.
+     * @roseuid 5837D10A0031
+     */
+    public void merge(SampleStatistics other) {
+        if (other.count == 0) {
+            return;
+        }
+        long total = this.count + other.count;
+        double delta = other.mean - this.mean;
+        this.mean += delta * other.count / total;
+        this.squaredDeviations += other.squaredDeviations + delta * delta * this.count * other.count / total;
+        this.count = total;
+    }
+
+    /**
+     * Gets the number of values in the sample.
+     *
+     * @return The size of the sample.
+     * @roseuid 5837D10A0032
+     */
+    public long getCount() {
+        return this.count;
+    }
+
+    /**
+     * Gets the mean of the sample.
+     *
+     * @return The mean, or 0 if the sample is empty.
+     * @roseuid 5837D10A0033
+     */
+    public double getMean() {
+        return this.mean;
+    }
+
+    /**
+     * Gets the unbiased variance of the sample.
+     *
+     * @return The variance, or 0 if the sample has less than two values.
+     * @roseuid 5837D10A0034
+     */
+    public double getVariance() {
+        return this.count < 2 ? 0 : this.squaredDeviations / (this.count - 1);
+    }
+
+    /**
+     * Gets the standard deviation of the sample.
+     *
+     * @return The standard deviation.
+     * @roseuid 5837D10A0035
+     */
+    public double getStandardDeviation() {
+        return Math.sqrt(this.getVariance());
+    }
+
+    /**
+     * Gets the half width of the 95% confidence interval of the mean, using the normal approximation.
+     *
+     * @return The margin of error of the mean.
+     * @roseuid 5837D10A0036
+     */
+    public double getConfidenceInterval() {
+        return this.count == 0 ? 0 : SampleStatistics.Z_95 * this.getStandardDeviation() / Math.sqrt(this.count);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return String.format("%.3f +/- %.3f", this.mean, this.getConfidenceInterval());
+    }
+
+}
@@ -0,0 +1,109 @@
+package model.simulation;
+
+import model.Game;
+import model.GameGrid;
+
+/**
+ * Headless simulation engine. It drives the rules implemented in the Game class turn by turn, as fast as possible,
+ * without any game thread, delay or view attached.
+ *
+ * @author SnapDragon
+ *
+ */
+public class Simulation {
+
+    /**
+     * Maximum number of turns a single wave can last before the simulation is considered stuck.
+     */
+    public static int MAX_TURNS_PER_WAVE = 100000;
+
+    private Game game;
+    private long turns = 0;
+
+    /**
+     * Constructs a simulation of a new game played on the specified grid.
+     *
+     * @param grid Grid on which the game is played.
+     * @roseuid 5837D10A0010
+     */
+    public Simulation(GameGrid grid) {
+        this(new Game(grid));
+    }
+
+    /**
+     * Constructs a simulation driving an existing game.
+     *
+     * @param game Game to drive. It should not have a game thread running.
+     * @roseuid 5837D10A0011
+     */
+    public Simulation(Game game) {
+        this.game = game;
+    }
+
+    /**
+     * Gets the game driven by the simulation.
+     *
+     * @return The simulated game.
+     * @roseuid 5837D10A0012
+     */
+    public Game getGame() {
+        return this.game;
+    }
+
+    /**
+     * Gets the number of turns played since the simulation was created.
+     *
+     * @return The number of turns played.
+     * @roseuid 5837D10A0013
+     */
+    public long getTurns() {
+        return this.turns;
+    }
+
+    /**
+     * Plays a single turn of the current wave.
+     *
+     * @return True if the wave is still in progress after the turn, false otherwise.
+     * @roseuid 5837D10A0014
+     */
+    public boolean step() {
+        if (!this.game.isMakingTurn()) {
+            return false;
+        }
+        this.game.makeTurn();
+        this.turns++;
+        return this.game.isMakingTurn();
+    }
+
+    /**
+     * Sends a wave of ghosts and plays it until it is over, or until the player has no more lives.
+     *
+     * @return The number of turns the wave lasted.
+     * @roseuid 5837D10A0015
+     */
+    public int playWave() {
+        this.game.startWave();
+        long firstTurn = this.turns;
+        while (this.step() && !this.game.isOver()) {
+            if (this.turns - firstTurn > Simulation.MAX_TURNS_PER_WAVE) {
+                throw new IllegalStateException("Wave " + this.game.getWave() + " did not end after "
+                                + Simulation.MAX_TURNS_PER_WAVE + " turns");
+            }
+        }
+        return (int) (this.turns - firstTurn);
+    }
+
+    /**
+     * Plays waves until the game is either won or lost.
+     *
+     * @return True if the game was won, false otherwise.
+     * @roseuid 5837D10A0016
+     */
+    public boolean playGame() {
+        while (!this.game.isOver() && !this.game.isWon()) {
+            this.playWave();
+        }
+        return this.game.isWon();
+    }
+
+}
@@ -0,0 +1,155 @@
+package model.simulation;
+
+import java.util.List;
+
+import model.Game;
+import model.tower.Tower;
+import model.tower.TowerFactory;
+
+/**
+ * A tower of a layout: the type of tower to buy, the location where to place it and the wave before which it is
+ * bought. Towers bought before a later wave are paid with the rewards of the previous waves.
+ *
+ * @author SnapDragon
+ *
+ */
+public class TowerPlacement {
+
+    private final String towerName;
+    private final int line;
+    private final int column;
+    private final int wave;
+
+    /**
+     * Tower of the placed type, used as a model when buying the tower. It is never placed on a grid.
+     */
+    private final Tower prototype;
+
+    /**
+     * Constructs a tower placement bought before the first wave.
+     *
+     * @param towerName Name of the type of tower, as known by the TowerFactory.
+     * @param line Line where to place the tower.
+     * @param column Column where to place the tower.
+     * @roseuid 5837D10A0020
+     */
+    public TowerPlacement(String towerName, int line, int column) {
+        this(towerName, line, column, 1);
+    }
+
+    /**
+     * Constructs a tower placement.
+     *
+     * @param towerName Name of the type of tower, as known by the TowerFactory.
+     * @param line Line where to place the tower.
+     * @param column Column where to place the tower.
+     * @param wave Wave before which the tower is bought, starting at 1.
+     * @roseuid 5837D10A0026
+     */
+    public TowerPlacement(String towerName, int line, int column, int wave) {
+        this.towerName = towerName;
+        this.line = line;
+        this.column = column;
+        this.wave = wave;
+        this.prototype = TowerFactory.createTower(towerName);
+    }
+
+    /**
+     * Parses a tower placement written as name@line,column or name@line,column:wave, for instance "Fire tower@4,5" or
+     * "Ice tower@7,3:2".
+     *
+     * @param placement Text of the placement.
+     * @return The tower placement.
+     * @roseuid 5837D10A0021
+     */
+    public static TowerPlacement parse(String placement) {
+        int at = placement.lastIndexOf('@');
+        int comma = placement.lastIndexOf(',');
+        int colon = placement.lastIndexOf(':');
+        if (at == -1 || comma < at || (colon != -1 && colon < comma)) {
+            throw new IllegalArgumentException("Invalid tower placement " + placement
+                            + ", expected name@line,column or name@line,column:wave");
+        }
+        int end = colon == -1 ? placement.length() : colon;
+        int wave = colon == -1 ? 1 : Integer.parseInt(placement.substring(colon + 1).trim());
+        return new TowerPlacement(placement.substring(0, at).trim(),
+                        Integer.parseInt(placement.substring(at + 1, comma).trim()),
+                        Integer.parseInt(placement.substring(comma + 1, end).trim()), wave);
+    }
+
+    /**
+     * Buys the towers of a layout that are placed before the current wave of a game. Called before every wave, it
+     * applies the whole layout to the game. The towers the player cannot afford are not bought.
+     *
+     * @param game Game on which the towers are placed.
+     * @param layout Towers of the layout, bought in order.
+     * @roseuid 5837D10A0027
+     */
+    public static void buyTowers(Game game, List<TowerPlacement> layout) {
+        for (TowerPlacement placement : layout) {
+            if (placement.wave == game.getWave()) {
+                game.buyTower(placement.prototype, placement.line, placement.column);
+            }
+        }
+    }
+
+    /**
+     * Gets the name of the type of tower.
+     *
+     * @return The name of the tower.
+     * @roseuid 5837D10A0022
+     */
+    public String getTowerName() {
+        return this.towerName;
+    }
+
+    /**
+     * Gets the line where the tower is placed.
+     *
+     * @return The line of the tower.
+     * @roseuid 5837D10A0023
+     */
+    public int getLine() {
+        return this.line;
+    }
+
+    /**
+     * Gets the column where the tower is placed.
+     *
+     * @return The column of the tower.
+     * @roseuid 5837D10A0024
+     */
+    public int getColumn() {
+        return this.column;
+    }
+
+    /**
+     * Gets the wave before which the tower is bought.
+     *
+     * @return The serial number of the wave, starting at 1.
+     * @roseuid 5837D10A0028
+     */
+    public int getWave() {
+        return this.wave;
+    }
+
+    /**
+     * Gets a tower of the placed type, to give to Game.buyTower. It must not be modified.
+     *
+     * @return A tower of the placed type.
+     * @roseuid 5837D10A0025
+     */
+    public Tower getPrototype() {
+        return this.prototype;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        String text = this.towerName + "@" + this.line + "," + this.column;
+        return this.wave == 1 ? text : text + ":" + this.wave;
+    }
+
+}
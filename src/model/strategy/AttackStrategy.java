@@ -1,9 +1,9 @@
 package model.strategy;
 
-import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Arrays;
+import java.util.SplittableRandom;
 
-import model.Ghost;
+import model.GhostStore;
 import model.GridLocation;
 import model.tower.Tower;
 
@@ -16,29 +16,78 @@ import model.tower.Tower;
 public class AttackStrategy {
 
     /**
-     * Selects a ghost to attack.
+     * Slots of the alive ghosts within the range of the tower, reused from one attack to the next.
+     */
+    private int[] ghostsInRange = new int[16];
+    private long allocationCount = 0;
+
+    /**
+     * Selects a ghost to attack. The ghosts in range are found by looking up the walkable tiles covered by the tower,
+     * or by going through the ghosts when there are fewer ghosts than covered tiles.
      *
-     * @param towerLocation Location of the tower that intends to shoot.
+     * @param tower The tower that intends to shoot.
      * @param ghosts ghosts that are currently on the grid.
-     * @return The ghost that the tower should shoot according to the strategy.
+     * @param random Random source of the game.
+     * @return The slot of the ghost that the tower should shoot according to the strategy, or -1 if no ghost is in
+     *         range.
      * @roseuid 5837CC410087
      */
-	public Ghost attackGhost(Tower tower, Collection<Ghost> ghosts, GridLocation endPoint) {
+	public int attackGhost(Tower tower, GhostStore ghosts, GridLocation endPoint, SplittableRandom random) {
 
-        ArrayList<Ghost> ghostsInRange = new ArrayList<Ghost>();
+        int inRangeCount = 0;
 
-        for (Ghost ghost : ghosts) {
-            if (GridLocation.distance(tower.getLocation(), ghost.gridLocation) <= tower.getRange()) {
-                ghostsInRange.add(ghost);
+        int[] coverage = tower.getCoverage();
+        if (coverage.length > 0 && coverage.length <= ghosts.size()) {
+            for (int cell : coverage) {
+                int slot = ghosts.slotAt(cell);
+                if (slot != -1 && !ghosts.isDead(slot)) {
+                    inRangeCount = this.addInRange(inRangeCount, slot);
+                }
+            }
+        } else {
+            GridLocation location = tower.getLocation();
+            int columnCount = ghosts.getColumnCount();
+            for (int slot = 0; slot < ghosts.size(); slot++) {
+                int cell = ghosts.getCell(slot);
+                int distance = Math.abs(cell / columnCount - location.x) + Math.abs(cell % columnCount - location.y);
+                if (!ghosts.isDead(slot) && distance <= tower.getRange()) {
+                    inRangeCount = this.addInRange(inRangeCount, slot);
+                }
             }
         }
 
-        if (ghostsInRange.isEmpty()) {
-            return null;
+        if (inRangeCount == 0) {
+            return -1;
         }
 
-        int randomIndex = (int) (Math.random() * ghostsInRange.size());
-        return ghostsInRange.get(randomIndex);
+        return this.ghostsInRange[random.nextInt(inRangeCount)];
+    }
+
+    /**
+     * Adds a ghost to the ghosts in range, growing the buffer if needed.
+     *
+     * @param inRangeCount Number of ghosts already in range.
+     * @param slot Slot of the ghost to add.
+     * @return The new number of ghosts in range.
+     * @roseuid 5837CC410088
+     */
+    private int addInRange(int inRangeCount, int slot) {
+        if (inRangeCount == this.ghostsInRange.length) {
+            this.allocationCount++;
+            this.ghostsInRange = Arrays.copyOf(this.ghostsInRange, inRangeCount * 2);
+        }
+        this.ghostsInRange[inRangeCount] = slot;
+        return inRangeCount + 1;
+    }
+
+    /**
+     * Gets the number of times the buffer of ghosts in range had to be allocated again.
+     *
+     * @return The number of allocations made by the strategy since it was created.
+     * @roseuid 5837CC410089
+     */
+    public long getAllocationCount() {
+        return this.allocationCount;
     }
 
     /**
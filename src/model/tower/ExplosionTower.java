@@ -1,8 +1,8 @@
 package model.tower;
 
-import java.util.Collection;
+import java.util.SplittableRandom;
 
-import model.Ghost;
+import model.GhostStore;
 import model.GridLocation;
 
 /**
@@ -51,22 +51,39 @@ public class ExplosionTower extends Tower {
      * {@inheritDoc}
      */
     @Override
-    public GridLocation attack(Collection<Ghost> ghosts, GridLocation endPoint) {
+    public int attack(GhostStore ghosts, GridLocation endPoint, SplittableRandom random) {
 
-        Ghost ghostToAttack = this.attackStrategy.attackGhost(this, ghosts, endPoint);
+        int ghostToAttack = this.attackStrategy.attackGhost(this, ghosts, endPoint, random);
 
-        if (ghostToAttack != null) {
-            ghostToAttack.takeDamage(this.power);
-            for (Ghost ghost : ghosts) {
-                if (GridLocation.nearby(ghost.gridLocation, ghostToAttack.gridLocation)) {
-                    ghost.takeDamage(this.power / 4);
-                }
-            }
-            return ghostToAttack.gridLocation;
+        if (ghostToAttack != -1) {
+            ghosts.takeDamage(ghostToAttack, this.power);
+            int target = ghosts.getCell(ghostToAttack);
+            int line = target / ghosts.getColumnCount();
+            int column = target % ghosts.getColumnCount();
+            this.splash(ghosts, line, column + 1);
+            this.splash(ghosts, line + 1, column);
+            this.splash(ghosts, line - 1, column);
+            this.splash(ghosts, line, column - 1);
+            return target;
         }
 
-        return null;
+        return -1;
 
     }
 
+    /**
+     * Deals the splash damage of the explosion to the ghost at the specified location, if there is one alive.
+     *
+     * @param ghosts Ghosts currently on the game grid.
+     * @param line Line of the nearby location.
+     * @param column Column of the nearby location.
+     * @roseuid 5837CC410085
+     */
+    private void splash(GhostStore ghosts, int line, int column) {
+        int slot = ghosts.slotAt(line, column);
+        if (slot != -1 && !ghosts.isDead(slot)) {
+            ghosts.takeDamage(slot, this.power / 4);
+        }
+    }
+
 }
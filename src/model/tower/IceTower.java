@@ -1,8 +1,8 @@
 package model.tower;
 
-import java.util.Collection;
+import java.util.SplittableRandom;
 
-import model.Ghost;
+import model.GhostStore;
 import model.GridLocation;
 
 /**
@@ -51,16 +51,16 @@ public class IceTower extends Tower {
      * {@inheritDoc}
      */
     @Override
-    public GridLocation attack(Collection<Ghost> ghosts, GridLocation endPoint) {
+    public int attack(GhostStore ghosts, GridLocation endPoint, SplittableRandom random) {
 
-        Ghost ghostToAttack = this.attackStrategy.attackGhost(this, ghosts, endPoint);
+        int ghostToAttack = this.attackStrategy.attackGhost(this, ghosts, endPoint, random);
 
-        if (ghostToAttack != null) {
-            ghostToAttack.takeDamage(this.power);
-            return ghostToAttack.gridLocation;
+        if (ghostToAttack != -1) {
+            ghosts.takeDamage(ghostToAttack, this.power);
+            return ghosts.getCell(ghostToAttack);
         }
 
-        return null;
+        return -1;
 
     }
 
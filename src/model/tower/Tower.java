@@ -1,9 +1,11 @@
 package model.tower;
 
-import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import model.Ghost;
+import model.GameGrid;
+import model.GhostStore;
 import model.GridLocation;
 import model.strategy.AttackStrategy;
 
@@ -13,14 +15,17 @@ import model.strategy.AttackStrategy;
  * @author SnapDragon
  *
  */
-public abstract class Tower {
+public abstract class Tower implements Cloneable {
 
     /**
      * Refund rate of the towers.
      */
     public static double REFUND_RATE = 0.40;
 
-    private static int idCounter = -3;
+    /**
+     * Counter of the tower ids, shared by the games simulated in parallel.
+     */
+    private static AtomicInteger idCounter = new AtomicInteger(-3);
     private int towerID;
 
     /**
@@ -45,6 +50,17 @@ public abstract class Tower {
      */
     protected GridLocation location;
 
+    /**
+     * Ids of the road tiles within the range of the tower, calculated when the tower is placed on a grid and when it is
+     * upgraded. Cell ids are computed as line * columnCount + column.
+     */
+    protected int[] coverage = new int[0];
+
+    /**
+     * Grid on which the tower is placed, used to calculate its coverage.
+     */
+    private GameGrid grid;
+
 
     /**
      * Default constructor for the Tower class.
@@ -52,7 +68,7 @@ public abstract class Tower {
      */
     public Tower() {
         this.setDetails();
-        towerID = ++idCounter;
+        towerID = Tower.idCounter.incrementAndGet();
     }
 
     /**
@@ -63,7 +79,7 @@ public abstract class Tower {
      */
     public Tower(GridLocation location) {
         this.setDetails();
-        towerID = ++idCounter;
+        towerID = Tower.idCounter.incrementAndGet();
         this.location = location;
     }
 
@@ -76,13 +92,14 @@ public abstract class Tower {
     /**
      * Causes the tower to attack a ghost.
      *
-     * @param ghosts List of ghosts currently on the game grid.
+     * @param ghosts Ghosts currently on the game grid. Might contain dead ghosts.
      * @param endPoint End point of the game grid. Might be used in the targeting strategy.
+     * @param random Random source of the game, used by the targeting strategy.
      *
-     * @return The location of the ghost that was targeted for attack.
+     * @return The id of the cell of the ghost that was targeted for attack, or -1 if no ghost was attacked.
      * @roseuid 5837CC570330
      */
-    public abstract GridLocation attack(Collection<Ghost> ghosts, GridLocation endPoint);
+    public abstract int attack(GhostStore ghosts, GridLocation endPoint, SplittableRandom random);
 
     /**
      * Gets the name of the tower.
@@ -145,6 +162,54 @@ public abstract class Tower {
         return this.location;
     }
 
+    /**
+     * Gets the walkable tiles within the range of the tower. Empty if the tower is not placed on a grid.
+     *
+     * @return The ids of the covered walkable tiles. The array must not be modified.
+     * @roseuid 5837CIAE0332
+     */
+    public int[] getCoverage() {
+        return this.coverage;
+    }
+
+    /**
+     * Calculates the walkable tiles within the range of the tower on the specified grid. Ghosts only stand on the
+     * tiles the distance field routes them through, so these are the only tiles the tower has to look at when
+     * targeting. The coverage is calculated again when the tower is upgraded.
+     *
+     * @param grid Grid on which the tower is placed.
+     * @roseuid 5837CIAE0333
+     */
+    public void buildCoverage(GameGrid grid) {
+        this.grid = grid;
+        if (this.location == null) {
+            this.coverage = new int[0];
+            return;
+        }
+
+        int columnCount = grid.getColumns();
+        int[] covered = new int[16];
+        int coveredCount = 0;
+        int firstLine = Math.max(0, this.location.x - this.range);
+        int lastLine = Math.min(grid.getRows() - 1, this.location.x + this.range);
+
+        for (int i = firstLine; i <= lastLine; i++) {
+            int span = this.range - Math.abs(i - this.location.x);
+            int firstColumn = Math.max(0, this.location.y - span);
+            int lastColumn = Math.min(columnCount - 1, this.location.y + span);
+            for (int j = firstColumn; j <= lastColumn; j++) {
+                if (grid.isWalkable(i, j)) {
+                    if (coveredCount == covered.length) {
+                        covered = Arrays.copyOf(covered, coveredCount * 2);
+                    }
+                    covered[coveredCount++] = i * columnCount + j;
+                }
+            }
+        }
+
+        this.coverage = Arrays.copyOf(covered, coveredCount);
+    }
+
     /**
      * Gets the cost to upgrade the level of the tower.
      * @roseuid 5837CC570332
@@ -244,6 +309,9 @@ public abstract class Tower {
         this.power *= 2;
         this.range *= 2;
         this.rateOfFire *= 2;
+        if (this.grid != null) {
+            this.buildCoverage(this.grid);
+        }
     }
 
     /**
@@ -256,13 +324,36 @@ public abstract class Tower {
         this.location = gridLocation;
     }
 
+    /**
+     * Copies the tower as it is now, with its id, location and details, for the snapshots of the game. The copy is not
+     * placed on a grid: it has no coverage and a new attack strategy, so changing it does not change the tower.
+     *
+     * @return A copy of the tower.
+     * @roseuid 5837CC570421
+     */
+    public Tower copy() {
+        Tower copy;
+        try {
+            copy = (Tower) super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);
+        }
+        if (this.location != null) {
+            copy.location = new GridLocation(this.location.x, this.location.y);
+        }
+        copy.attackStrategy = new AttackStrategy();
+        copy.coverage = new int[0];
+        copy.grid = null;
+        return copy;
+    }
+
     /**
      * Resets the id counter used to generate the
      * unique ids of the towers.
      * @roseuid 5837CC570420
      */
     public static void resetIdCounter() {
-        Tower.idCounter = -3;
+        Tower.idCounter.set(-3);
     }
 
 }
@@ -4,9 +4,14 @@ import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.GridLayout;
+import java.awt.Toolkit;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.MouseEvent;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Observable;
-import java.util.Observer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.swing.ImageIcon;
 import javax.swing.JButton;
@@ -15,26 +20,35 @@ import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 import javax.swing.border.EmptyBorder;
 
 import controllers.GameController;
 import model.Ghost;
 import model.Game;
-import model.GameGrid;
+import model.GameSnapshot;
 import model.GridLocation;
+import model.event.GameEvent;
+import model.event.GameEventBatch;
+import model.event.GameEventListener;
+import model.event.TowerFiredEvent;
 import model.tower.Tower;
 
 /**
- * This class is the main user interface view used to play the game. It implements the Observer interface to get
- * informed of changes in the Game class objects.
+ * This class is the main user interface view used to play the game. It listens to the events of the Game class objects
+ * to get informed of their changes. The view is only drawn on the event dispatch thread, from the snapshots delivered
+ * with the events.
  *
  * @author SnapDragon
  *
  */
-public class GameView implements Observer {
+public class GameView implements GameEventListener {
 
     /**
-     * Amount of time, in milliseconds, to show the attacking effects on the ghosts.
+     * Amount of time, in milliseconds, to show the attacking effects on the ghosts. The effects are animated by a Swing
+     * timer ticking at this delay.
      */
     public static int ATTACK_EFFECTS_DELAY = 15;
 
@@ -46,7 +60,7 @@ public class GameView implements Observer {
     public Tower selectedTower;
     public Ghost selectedGhost;
 
-    private JButton[][] tiles;
+    private MapCanvas mapCanvas;
     private JFrame gameFrame;
     private JLabel cashLabel;
     private JLabel lifeLabel;
@@ -56,6 +70,34 @@ public class GameView implements Observer {
     private JLabel waveLabel;
 
     private GameController gameController;
+    private Game game;
+
+    /**
+     * Batches of events received from the game and not drawn yet. The game thread only adds batches to this queue, the
+     * event dispatch thread draws them, so neither waits on the other.
+     */
+    private ConcurrentLinkedQueue<GameEventBatch> pendingBatches = new ConcurrentLinkedQueue<GameEventBatch>();
+    private AtomicBoolean renderScheduled = new AtomicBoolean(false);
+    private Runnable renderTask = new Runnable() {
+        @Override
+        public void run() {
+            GameView.this.render();
+        }
+    };
+
+    /**
+     * Last snapshot drawn by the view. Only used on the event dispatch thread.
+     */
+    private GameSnapshot snapshot;
+    private boolean gameEnded = false;
+
+    /**
+     * Cells of the attacks waiting to be shown, and of the attacks currently shown. Only used on the event dispatch
+     * thread.
+     */
+    private ArrayDeque<Integer> attackEffects = new ArrayDeque<Integer>();
+    private ArrayList<Integer> shownEffects = new ArrayList<Integer>();
+    private Timer effectsTimer;
 
 
     /**
@@ -68,16 +110,28 @@ public class GameView implements Observer {
      */
     public GameView(Game game, GameController controller) {
 
-        int row = game.grid.getCases().length;
-        int col = game.grid.getCases()[0].length;
+        int row = game.grid.getRows();
+        int col = game.grid.getColumns();
 
-        this.gameFrame = new JFrame("Ghost-Killer");
+        this.gameFrame = new JFrame("Ghost-Killer - seed " + game.getSeed());
         this.gameController = controller;
+        this.game = game;
+        this.effectsTimer = new Timer(GameView.ATTACK_EFFECTS_DELAY, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent event) {
+                GameView.this.animateAttackEffects();
+            }
+        });
+        // Large maps are scrolled within a frame that fits on the screen.
+        Dimension screenSize = Toolkit.getDefaultToolkit().getScreenSize();
+        int frameWidth = Math.min(530 * col / 10, screenSize.width);
+        int frameHeight = Math.min(680 * row / 10, screenSize.height);
+
         this.towerInspectionFrame = new JFrame("Tower Inspection");
-        this.towerInspectionFrame.setBounds(700 + 530 * col / 10, 600, 600, 500);
+        this.towerInspectionFrame.setBounds(700 + frameWidth, 600, 600, 500);
 
         this.ghostInspectionFrame = new JFrame("Ghost Inspection");
-        this.ghostInspectionFrame.setBounds(450 + 530 * col / 10, 160, 230, 100);
+        this.ghostInspectionFrame.setBounds(450 + frameWidth, 160, 230, 100);
 
         // mainPane to add all other panels
         JPanel mainPane = new JPanel();
@@ -85,29 +139,16 @@ public class GameView implements Observer {
         mainPane.setLayout(new BorderLayout(0, 0));
         this.gameFrame.setContentPane(mainPane);
 
-        JPanel map = new JPanel(new GridLayout(row, col, 0, 0));
-        this.tiles = new JButton[row][col];
-
-        for (int i = 0; i < row * col; i++) {
-
-            this.tiles[i / col][i % col] = new JButton();
-            this.tiles[i / col][i % col].setContentAreaFilled(false);
-            this.tiles[i / col][i % col].setFocusPainted(false);
-            this.tiles[i / col][i % col].setOpaque(false);
-            this.tiles[i / col][i % col].setBorderPainted(false);
-
-            int caseTypeOrdinal = game.grid.getCases()[i / col][i % col].ordinal();
-            String iconPath = GameGrid.CASE_TYPES_ICON_PATHS[caseTypeOrdinal];
-            this.tiles[i / col][i % col].setIcon(new ImageIcon(iconPath));
-
-            this.tiles[i / col][i % col].addMouseListener(controller);
-
-            map.add(this.tiles[i / col][i % col]);
-        }
+        this.mapCanvas = new MapCanvas(game.grid);
+        this.mapCanvas.addMouseListener(controller);
 
+        JScrollPane map = new JScrollPane(this.mapCanvas);
+        map.setBorder(null);
+        map.getHorizontalScrollBar().setUnitIncrement(MapCanvas.TILE_SIZE / 2);
+        map.getVerticalScrollBar().setUnitIncrement(MapCanvas.TILE_SIZE / 2);
         mainPane.add(map);
 
-        this.gameFrame.setSize(530 * col / 10, 680 * row / 10);
+        this.gameFrame.setSize(frameWidth, frameHeight);
 
         this.gameFrame.setLocationRelativeTo(null);
         this.gameFrame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
@@ -126,7 +167,7 @@ public class GameView implements Observer {
         for (int i = 0; i < Game.AVAILABLE_TOWERS.length; i++) {
 
             Tower tower = Game.AVAILABLE_TOWERS[i];
-            ImageIcon towerIcon = new ImageIcon(tower.getIconPath());
+            ImageIcon towerIcon = SpriteCache.get(tower.getIconPath());
             JLabel towerLabel = new JLabel(towerIcon);
 
             this.towerLabels.add(towerLabel);
@@ -145,21 +186,21 @@ public class GameView implements Observer {
         healthBankPanel.add(this.waveLabel);
 
         // Ghosts image
-        JLabel ghostImgLabel = new JLabel(new ImageIcon(Ghost.ICON_PATH));
+        JLabel ghostImgLabel = new JLabel(SpriteCache.get(Ghost.ICON_PATH));
         healthBankPanel.add(ghostImgLabel);
         this.ghostsKilledLabel = new JLabel("" + game.getKilledGhosts());
         this.ghostsKilledLabel.setForeground(Color.green);
         healthBankPanel.add(this.ghostsKilledLabel);
 
         // Bank image
-        JLabel bankImgLabel = new JLabel(new ImageIcon("icons/bank_icon.png"));
+        JLabel bankImgLabel = new JLabel(SpriteCache.get(SpriteCache.BANK_ICON_PATH));
         healthBankPanel.add(bankImgLabel);
         this.cashLabel = new JLabel("$" + game.getMoney());
         this.cashLabel.setForeground(Color.green);
         healthBankPanel.add(this.cashLabel);
 
         // Health image
-        JLabel lifeImgLabel = new JLabel(new ImageIcon("icons/life_icon.png"));
+        JLabel lifeImgLabel = new JLabel(SpriteCache.get(SpriteCache.LIFE_ICON_PATH));
         healthBankPanel.add(lifeImgLabel);
         this.lifeLabel = new JLabel("" + game.getLives());
         this.lifeLabel.setForeground(Color.green);
@@ -179,58 +220,105 @@ public class GameView implements Observer {
      */
     public void show() {
         this.gameFrame.setVisible(true);
+        this.effectsTimer.start();
     }
 
     /**
-     * After it is instantiated, the view should only be updated using this method. The view should know what to look
-     * for in the Game object in order to update it's representation.
+     * Shows the attack effects queued since the last frame, and restores the tiles of the effects shown during the
+     * last frame. Called by the effects timer on the event dispatch thread, so the game never waits on the effects.
+     * @roseuid 5837CC8C02G7
+     */
+    private void animateAttackEffects() {
+        for (Integer shownCell : this.shownEffects) {
+            this.mapCanvas.setAttackEffect(shownCell, false);
+        }
+        this.shownEffects.clear();
+
+        Integer attackedCell = this.attackEffects.poll();
+        while (attackedCell != null) {
+            this.mapCanvas.setAttackEffect(attackedCell, true);
+            this.shownEffects.add(attackedCell);
+            attackedCell = this.attackEffects.poll();
+        }
+    }
+
+    /**
+     * Called by the game with the events of a turn or of a user action. This method can be called from any thread: the
+     * batch received is queued and drawn later on the event dispatch thread.
      * @roseuid 5837CC98IGC4
      */
     @Override
-    public void update(Observable observable, Object object) {
-        Game game = (Game) observable;
-
-        for (GridLocation attackLocation : game.attackedGhosts) {
-            this.tiles[attackLocation.x][attackLocation.y].setIcon(new ImageIcon("icons/fire.png"));
-            try {
-                Thread.sleep(GameView.ATTACK_EFFECTS_DELAY);
-            } catch (InterruptedException e) {
-                System.out.println("This can happen if we interrupt the thread in the game.");
-            }
+    public void eventsFired(GameEventBatch batch) {
+        this.pendingBatches.add(batch);
+        if (this.renderScheduled.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(this.renderTask);
         }
+    }
 
-        // For now, we only update the locations of the towers.
-        for (int i = 0; i < this.tiles.length; i++) {
-            for (int j = 0; j < this.tiles[0].length; j++) {
-                if (game.hasTower(i, j)) {
-                    this.placeTower(i, j, game.getTower(i, j));
-                }
-
-                if (game.hasGhost(new GridLocation(i, j))) {
-                    this.placeGhost(i, j);
-                }
+    /**
+     * Redraws the view from a snapshot of the game, without any event. Used to draw the game when the view is shown.
+     *
+     * @param gameSnapshot Snapshot of the game to draw.
+     * @roseuid 5837CC98IGC8
+     */
+    public void update(GameSnapshot gameSnapshot) {
+        this.eventsFired(new GameEventBatch(new ArrayList<GameEvent>(), gameSnapshot));
+    }
 
-                if (game.noGhost(new GridLocation(i, j))) {
-                    this.removeGhost(i, j);
+    /**
+     * Draws the batches received since the last rendering. Only the cells that changed in any of these batches are
+     * redrawn, according to the most recent snapshot.
+     * @roseuid 5837CC98IGC6
+     */
+    private void render() {
+        this.renderScheduled.set(false);
+
+        ArrayList<Integer> dirtyCells = new ArrayList<Integer>();
+        GameEventBatch batch = this.pendingBatches.poll();
+        while (batch != null) {
+            this.snapshot = batch.getSnapshot();
+            for (int i = 0; i < this.snapshot.getDirtyCount(); i++) {
+                dirtyCells.add(this.snapshot.getDirtyCell(i));
+            }
+            // The attack effects are only queued here, the effects timer shows them.
+            for (GameEvent event : batch.getEvents()) {
+                if (event.getType() == GameEvent.Type.TOWER_FIRED) {
+                    this.attackEffects.add(((TowerFiredEvent) event).getTargetCell());
                 }
-
             }
+            batch = this.pendingBatches.poll();
+        }
+        if (this.snapshot == null || this.gameEnded) {
+            return;
+        }
+
+        this.mapCanvas.setSnapshot(this.snapshot);
+        for (Integer dirtyCell : dirtyCells) {
+            this.mapCanvas.repaintCell(dirtyCell);
         }
 
-        this.cashLabel.setText("$" + game.getMoney());
-        this.lifeLabel.setText("" + game.getLives());
-        this.ghostsKilledLabel.setText("" + game.getKilledGhosts());
-        this.waveLabel.setText("Wave: " + game.getWave());
+        this.cashLabel.setText("$" + this.snapshot.getMoney());
+        this.lifeLabel.setText("" + this.snapshot.getLives());
+        this.ghostsKilledLabel.setText("" + this.snapshot.getKilledGhosts());
+        this.waveLabel.setText("Wave: " + this.snapshot.getWave());
 
         if (this.selectedGhost != null && this.ghostInspectionFrame.isVisible()) {
+            Ghost ghost = this.snapshot.getGhostById(this.selectedGhost.ghostID);
+            if (ghost != null) {
+                this.selectedGhost = ghost;
+            }
             this.showGhostDetails(this.selectedGhost);
         }
 
-        if (game.isOver()) {
+        if (this.snapshot.isOver()) {
+            this.gameEnded = true;
+            this.effectsTimer.stop();
             JOptionPane.showMessageDialog(null, "Sorry, you lost. Please try again.", "Game Over.",
                             JOptionPane.INFORMATION_MESSAGE);
             this.gameFrame.setVisible(false);
-        } else if (game.isWon()) {
+        } else if (this.snapshot.isWon()) {
+            this.gameEnded = true;
+            this.effectsTimer.stop();
             JOptionPane.showMessageDialog(null, "You won the game!", "Congratulations!",
                             JOptionPane.INFORMATION_MESSAGE);
             this.gameFrame.setVisible(false);
@@ -238,72 +326,39 @@ public class GameView implements Observer {
     }
 
     /**
-     * Removes a ghost form the specified location.
+     * Gets the last snapshot drawn by the view. Should only be called from the event dispatch thread.
      *
-     * @param line Line from where to remove the ghost.
-     * @param column Column from where to remove the ghost.
-     * @roseuid 5837CC8C0228
+     * @return The snapshot currently displayed, or null if nothing was drawn yet.
+     * @roseuid 5837CC98IGC7
      */
-    public void removeGhost(int line, int column) {
-        this.tiles[line][column].setIcon(new ImageIcon("icons/road.jpg"));
-
+    public GameSnapshot getSnapshot() {
+        return this.snapshot;
     }
 
     /**
-     * Places a ghost at the specified location.
-     *
-     * @param line Line where to place the ghost.
-     * @param column Column where to place the ghost.
-     * @roseuid 5837CC8CG569
-     */
-    private void placeGhost(int line, int column) {
-        this.tiles[line][column].setIcon(new ImageIcon(Ghost.ICON_PATH));
-
-    }
-
-    /**
-     * Places the selected tower on the game grid.
-     *
-     * @param line Line of selected tile.
-     * @param column Column of the selected tile
-     * @param tower Tower object to place on the grid.
-     * @roseuid 5837CC8I87GH
-     *
-     */
-    private void placeTower(int line, int column, Tower tower) {
-        this.tiles[line][column].setBackground(new Color(45, 111, 1));
-        this.tiles[line][column].setOpaque(true);
-        this.tiles[line][column].setIcon(new ImageIcon(tower.getIconPath()));
-    }
-
-    /**
-     * Removes a tower from the game grid.
+     * Redraws a tile after a tower was removed from it.
      *
      * @param line Line of selected tile.
      * @param column Column of the selected tile
      * @roseuid 5837CC8C009G
      */
     public void removeTower(int line, int column) {
-        this.tiles[line][column].setIcon(new ImageIcon(GameGrid.CASE_TYPES_ICON_PATHS[0]));
+        this.mapCanvas.repaintCell(line * this.game.grid.getColumns() + column);
     }
 
     /**
-     * Returns the (x,y) coordinates of the specified button.
+     * Returns the location of the tile on which a mouse event happened.
      *
-     * @param button Game grid tile on which user has clicked.
+     * @param event Mouse event received by the controller.
      *
-     * @return The Coordinates of the button clicked.
+     * @return The location of the tile, or null if the event did not happen on the map.
      * @roseuid 5837CC8EA569
      */
-    public GridLocation getButtonLocation(JButton button) {
-        for (int i = 0; i < this.tiles.length; i++) {
-            for (int j = 0; j < this.tiles[0].length; j++) {
-                if (this.tiles[i][j] == button) {
-                    return new GridLocation(i, j);
-                }
-            }
+    public GridLocation getTileLocation(MouseEvent event) {
+        if (event.getSource() != this.mapCanvas) {
+            return null;
         }
-        return null;
+        return this.mapCanvas.locationAt(event.getX(), event.getY());
     }
 
     /**
@@ -322,7 +377,7 @@ public class GameView implements Observer {
 
         JPanel ghostImagePanel = new JPanel();
         ghostInspectionPanel.add(ghostImagePanel, BorderLayout.NORTH);
-        JLabel towerImage = new JLabel(new ImageIcon(Ghost.ICON_PATH));
+        JLabel towerImage = new JLabel(SpriteCache.get(Ghost.ICON_PATH));
         towerImage.setBackground(Color.DARK_GRAY);
         ghostImagePanel.setBackground(Color.DARK_GRAY);
         ghostImagePanel.add(towerImage);
@@ -380,7 +435,7 @@ public class GameView implements Observer {
         // Tower Image Sell Tower Button and Upgrade Tower Button.
         JPanel towerImagePanel = new JPanel();
         towerInspectionPanel.add(towerImagePanel, BorderLayout.NORTH);
-        JLabel towerImage = new JLabel(new ImageIcon(tower.getIconPath()));
+        JLabel towerImage = new JLabel(SpriteCache.get(tower.getIconPath()));
         towerImage.setBackground(Color.DARK_GRAY);
         towerImagePanel.setBackground(Color.DARK_GRAY);
         towerImagePanel.add(towerImage);
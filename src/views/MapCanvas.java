@@ -0,0 +1,193 @@
+package views;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Image;
+import java.awt.Rectangle;
+import java.util.BitSet;
+
+import javax.swing.JComponent;
+
+import model.GameGrid;
+import model.GameSnapshot;
+import model.Ghost;
+import model.GridLocation;
+import model.tower.Tower;
+
+/**
+ * Component drawing the whole game map. The tiles are painted from the sprite cache into the back buffer of Swing, and
+ * only the tiles within the area to repaint are drawn, so the cost of a repaint depends on the size of the changed
+ * area and not on the size of the map. Clicks are mapped to tiles arithmetically. Should only be used on the event
+ * dispatch thread.
+ *
+ * @author SnapDragon
+ *
+ */
+public class MapCanvas extends JComponent {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Size of a tile on the screen, in pixels. All the tile images are of this size.
+     */
+    public static int TILE_SIZE = 52;
+
+    /**
+     * Background drawn behind the towers.
+     */
+    private static final Color TOWER_BACKGROUND = new Color(45, 111, 1);
+
+    private GameGrid grid;
+    private int lineCount;
+    private int columnCount;
+
+    /**
+     * Snapshot of the game drawn on the map, null until the first one is received.
+     */
+    private GameSnapshot snapshot;
+
+    /**
+     * Cells on which an attack effect is shown.
+     */
+    private BitSet attackEffects = new BitSet();
+
+    /**
+     * Constructs the component for the map of the specified grid.
+     *
+     * @param grid Grid to draw.
+     * @roseuid 5837CC8F0001
+     */
+    public MapCanvas(GameGrid grid) {
+        this.grid = grid;
+        this.lineCount = grid.getRows();
+        this.columnCount = grid.getColumns();
+        this.setOpaque(true);
+        this.setPreferredSize(new Dimension(this.columnCount * MapCanvas.TILE_SIZE,
+                        this.lineCount * MapCanvas.TILE_SIZE));
+    }
+
+    /**
+     * Sets the snapshot of the game to draw. Nothing is repainted: the caller should repaint the cells that changed.
+     *
+     * @param snapshot Snapshot of the game.
+     * @roseuid 5837CC8F0002
+     */
+    public void setSnapshot(GameSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * Shows or hides the attack effect on a cell.
+     *
+     * @param cell Id of the cell (line * columnCount + column).
+     * @param shown True to show the effect, false to hide it.
+     * @roseuid 5837CC8F0003
+     */
+    public void setAttackEffect(int cell, boolean shown) {
+        this.attackEffects.set(cell, shown);
+        this.repaintCell(cell);
+    }
+
+    /**
+     * Schedules the repaint of a single tile. Swing merges the repaints requested before the next frame.
+     *
+     * @param cell Id of the cell (line * columnCount + column).
+     * @roseuid 5837CC8F0004
+     */
+    public void repaintCell(int cell) {
+        int line = cell / this.columnCount;
+        int column = cell % this.columnCount;
+        this.repaint(column * MapCanvas.TILE_SIZE, line * MapCanvas.TILE_SIZE, MapCanvas.TILE_SIZE,
+                        MapCanvas.TILE_SIZE);
+    }
+
+    /**
+     * Gets the location of the tile at the specified point of the component.
+     *
+     * @param x Horizontal position, in pixels.
+     * @param y Vertical position, in pixels.
+     * @return The location of the tile, or null if the point is outside of the map.
+     * @roseuid 5837CC8F0005
+     */
+    public GridLocation locationAt(int x, int y) {
+        if (x < 0 || y < 0) {
+            return null;
+        }
+        int line = y / MapCanvas.TILE_SIZE;
+        int column = x / MapCanvas.TILE_SIZE;
+        if (line >= this.lineCount || column >= this.columnCount) {
+            return null;
+        }
+        return new GridLocation(line, column);
+    }
+
+    /**
+     * Paints the tiles within the clip area of the graphics.
+     *
+     * @param graphics Graphics to paint on.
+     * @roseuid 5837CC8F0006
+     */
+    @Override
+    protected void paintComponent(Graphics graphics) {
+        Rectangle clip = graphics.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, this.getWidth(), this.getHeight());
+        }
+        int firstLine = Math.max(0, clip.y / MapCanvas.TILE_SIZE);
+        int lastLine = Math.min(this.lineCount - 1, (clip.y + clip.height - 1) / MapCanvas.TILE_SIZE);
+        int firstColumn = Math.max(0, clip.x / MapCanvas.TILE_SIZE);
+        int lastColumn = Math.min(this.columnCount - 1, (clip.x + clip.width - 1) / MapCanvas.TILE_SIZE);
+
+        for (int line = firstLine; line <= lastLine; line++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                this.paintTile(graphics, line, column);
+            }
+        }
+    }
+
+    /**
+     * Paints a tile according to what is on it: a tower, a ghost or the bare tile, and the attack effect if one is
+     * shown.
+     *
+     * @param graphics Graphics to paint on.
+     * @param line Line of the tile.
+     * @param column Column of the tile.
+     * @roseuid 5837CC8F0007
+     */
+    private void paintTile(Graphics graphics, int line, int column) {
+        int x = column * MapCanvas.TILE_SIZE;
+        int y = line * MapCanvas.TILE_SIZE;
+        int cell = line * this.columnCount + column;
+
+        Tower tower = this.snapshot == null ? null : this.snapshot.getTower(cell);
+        if (tower != null) {
+            graphics.setColor(MapCanvas.TOWER_BACKGROUND);
+            graphics.fillRect(x, y, MapCanvas.TILE_SIZE, MapCanvas.TILE_SIZE);
+            this.drawSprite(graphics, tower.getIconPath(), x, y);
+        } else if (this.snapshot != null && this.snapshot.hasGhost(cell)) {
+            this.drawSprite(graphics, Ghost.ICON_PATH, x, y);
+        } else {
+            this.drawSprite(graphics, GameGrid.CASE_TYPES_ICON_PATHS[this.grid.getCase(line, column).ordinal()], x, y);
+        }
+
+        if (this.attackEffects.get(cell)) {
+            this.drawSprite(graphics, SpriteCache.ATTACK_ICON_PATH, x, y);
+        }
+    }
+
+    /**
+     * Draws an image of the sprite cache.
+     *
+     * @param graphics Graphics to paint on.
+     * @param path Path of the image.
+     * @param x Horizontal position, in pixels.
+     * @param y Vertical position, in pixels.
+     * @roseuid 5837CC8F0008
+     */
+    private void drawSprite(Graphics graphics, String path, int x, int y) {
+        Image image = SpriteCache.get(path).getImage();
+        graphics.drawImage(image, x, y, MapCanvas.TILE_SIZE, MapCanvas.TILE_SIZE, null);
+    }
+
+}
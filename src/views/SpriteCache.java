@@ -0,0 +1,78 @@
+package views;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.swing.ImageIcon;
+
+import model.Game;
+import model.GameGrid;
+import model.Ghost;
+import model.tower.Tower;
+
+/**
+ * Cache of the images used by the views. Every image is decoded once and the same icon is shared by all the tiles,
+ * views and inspection frames that display it.
+ *
+ * @author SnapDragon
+ *
+ */
+public class SpriteCache {
+
+    /**
+     * Image shown on a ghost when it is attacked.
+     */
+    public static String ATTACK_ICON_PATH = "icons/fire.png";
+
+    /**
+     * Images shown in the status bar of the game view.
+     */
+    public static String BANK_ICON_PATH = "icons/bank_icon.png";
+    public static String LIFE_ICON_PATH = "icons/life_icon.png";
+
+    private static ConcurrentHashMap<String, ImageIcon> sprites = new ConcurrentHashMap<String, ImageIcon>();
+
+    /**
+     * Gets the icon for an image, decoding the image the first time it is requested.
+     *
+     * @param path Path of the image.
+     * @return The shared icon of the image.
+     * @roseuid 5837CC8D0001
+     */
+    public static ImageIcon get(String path) {
+        ImageIcon sprite = SpriteCache.sprites.get(path);
+        if (sprite == null) {
+            sprite = new ImageIcon(path);
+            ImageIcon previous = SpriteCache.sprites.putIfAbsent(path, sprite);
+            if (previous != null) {
+                sprite = previous;
+            }
+        }
+        return sprite;
+    }
+
+    /**
+     * Decodes all the images used by the game in a background thread, so that they are ready when the first view is
+     * built.
+     * @roseuid 5837CC8D0002
+     */
+    public static void preload() {
+        Thread loader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (String path : GameGrid.CASE_TYPES_ICON_PATHS) {
+                    SpriteCache.get(path);
+                }
+                for (Tower tower : Game.AVAILABLE_TOWERS) {
+                    SpriteCache.get(tower.getIconPath());
+                }
+                SpriteCache.get(Ghost.ICON_PATH);
+                SpriteCache.get(SpriteCache.ATTACK_ICON_PATH);
+                SpriteCache.get(SpriteCache.BANK_ICON_PATH);
+                SpriteCache.get(SpriteCache.LIFE_ICON_PATH);
+            }
+        }, "SpriteLoader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+}